@@ -23,10 +23,16 @@ import com.dreamhorizon.core.configuration.ConfigurationHandler;
 import com.dreamhorizon.core.configuration.enums.CoreConfiguration;
 import com.dreamhorizon.core.configuration.enums.Message;
 import com.dreamhorizon.core.database.DatabaseHandler;
+import com.dreamhorizon.core.listeners.PlayerListener;
 import com.dreamhorizon.core.listeners.ServerListener;
 import com.dreamhorizon.core.logging.LoggingHandler;
 import com.dreamhorizon.core.modulation.ModuleHandler;
 import com.dreamhorizon.core.tasks.GlobalPlaceHolderTask;
+import com.dreamhorizon.core.tasks.MainThreadWatchdog;
+import com.dreamhorizon.core.tasks.ReplicaHealthTask;
+import com.dreamhorizon.core.tasks.TickJobScheduler;
+import com.dreamhorizon.core.tasks.WatchdogHeartbeatTask;
+import com.dreamhorizon.core.tasks.WriteBehindFlushTask;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -71,10 +77,8 @@ public final class DHCore extends JavaPlugin {
     public void onEnable() {
         super.onEnable();
         // Essential Handlers.
-        // Open DB Connection.
-        if (databaseHandler != null) {
-            databaseHandler.open();
-        } else {
+        // Connections are borrowed from the pool per unit of work, the main thread doesn't keep one.
+        if (databaseHandler == null) {
             Bukkit.getPluginManager().disablePlugin(this);
             return;
         }
@@ -84,6 +88,19 @@ public final class DHCore extends JavaPlugin {
         registerListeners();
         // Start the UpdateGlobalPlaceHolders runnable, which will just update our global placeholders every minute.
         new GlobalPlaceHolderTask().runTaskTimer(this, 0, 6000L);
+        // Flush buffered database writes asynchronously.
+        long flushInterval = ((Number) configurationHandler.getConfig("core").get(CoreConfiguration.DATABASE_WRITE_BEHIND_FLUSH_INTERVAL)).longValue() * 20L;
+        new WriteBehindFlushTask().runTaskTimerAsynchronously(this, flushInterval, flushInterval);
+        // Check the read replicas' health and lag asynchronously.
+        if (databaseHandler.getReplicaRouter() != null) {
+            long checkInterval = ((Number) configurationHandler.getConfig("core").get(CoreConfiguration.DATABASE_REPLICAS_CHECK_INTERVAL)).longValue() * 20L;
+            new ReplicaHealthTask(databaseHandler.getReplicaRouter()).runTaskTimerAsynchronously(this, 0L, checkInterval);
+        }
+        // Run the modules' chunked jobs every tick.
+        TickJobScheduler.getInstance().runTaskTimer(this, 1L, 1L);
+        // Watch the main thread for stalls, the modules' onEnable included.
+        MainThreadWatchdog.getInstance().start();
+        new WatchdogHeartbeatTask().runTaskTimer(this, 1L, 1L);
         
         getLogger().info((String) ConfigurationHandler.getInstance().getConfig("messages").get(Message.CORE_ENABLED));
         // Finally, since everything is setup let the modules do their thing.
@@ -92,6 +109,7 @@ public final class DHCore extends JavaPlugin {
     
     private void registerListeners() {
         Bukkit.getPluginManager().registerEvents(new ServerListener(), this);
+        Bukkit.getPluginManager().registerEvents(new PlayerListener(), this);
     }
     
     @Override
@@ -103,6 +121,10 @@ public final class DHCore extends JavaPlugin {
         }
         commandHandler.unregister();
         moduleHandler.disableModules();
+        TickJobScheduler.getInstance().shutdown();
+        MainThreadWatchdog.getInstance().shutdown();
+        // Write everything that is still buffered.
+        databaseHandler.getWriteBehindBuffer().flush();
         // Close DatabaseHandler
         databaseHandler.close();
         
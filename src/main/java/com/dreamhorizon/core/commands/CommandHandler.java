@@ -21,43 +21,51 @@ package com.dreamhorizon.core.commands;
 import co.aikar.commands.BukkitCommandCompletionContext;
 import co.aikar.commands.BukkitCommandExecutionContext;
 import co.aikar.commands.CommandCompletions;
+import co.aikar.commands.CommandContexts;
 import co.aikar.commands.InvalidCommandArgument;
-import co.aikar.commands.PaperCommandManager;
 import co.aikar.commands.contexts.ContextResolver;
 import com.dreamhorizon.core.DHCore;
 import com.dreamhorizon.core.commands.implementation.DHCommand;
+import com.dreamhorizon.core.commands.implementation.DHCommandManager;
 import com.dreamhorizon.core.modulation.ModuleHandler;
 import com.dreamhorizon.core.modulation.implementation.ModuleEntry;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
+import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * @author Lukas Mansour
  * @since 1.0
  */
 public class CommandHandler {
+    private static final Logger LOGGER = LogManager.getLogger("com.dreamhorizon.core");
     private static final CommandHandler instance = new CommandHandler();
     private final List<DHCommand> commands = new ArrayList<>();
     private final HashMap<String, CommandCompletions.CommandCompletionHandler<BukkitCommandCompletionContext>> completions = new HashMap<>();
     private final HashMap<String, CommandCompletions.AsyncCommandCompletionHandler<BukkitCommandCompletionContext>> asyncCompletions = new HashMap<>();
     private final HashMap<Class, ContextResolver<?, BukkitCommandExecutionContext>> contexts = new HashMap<>();
     
-    private PaperCommandManager manager = null;
+    private DHCommandManager manager = null;
     
     private CommandHandler() {
         completions.put("boolean", context -> Arrays.asList("true", "false"));
         commands.add(new ModuleCommand());
         commands.add(new FunCommand());
+        commands.add(new DatabaseCommand());
     }
     
     @SuppressWarnings("unchecked")
     public void register() {
         // Add modules here or else we would have loaded them too early above.
-        completions.put("modules", context -> ModuleHandler.getInstance().getModuleEntries().stream().map(ModuleEntry::getName).collect(Collectors.toList()));
+        completions.put("modules", context -> ModuleHandler.getInstance().getModuleNames());
         contexts.put(ModuleEntry.class, context -> {
             String name = context.popFirstArg();
             ModuleEntry module = ModuleHandler.getInstance().getModuleEntry(name);
@@ -68,7 +76,7 @@ public class CommandHandler {
         });
         
         // register to PaperCommandManager.
-        manager = new PaperCommandManager(DHCore.getPlugin(DHCore.class));
+        manager = new DHCommandManager(DHCore.getPlugin(DHCore.class));
         completions.forEach((key, context) -> manager.getCommandCompletions().registerCompletion(key, context));
         asyncCompletions.forEach((key, context) -> manager.getCommandCompletions().registerAsyncCompletion(key, context));
         contexts.forEach((clazz, resolver) -> manager.getCommandContexts().registerContext(clazz, resolver));
@@ -115,6 +123,36 @@ public class CommandHandler {
         }
     }
     
+    public void unregisterCompletion(String key) {
+        completions.remove(key);
+        if (manager != null) {
+            // ACF can't remove completions, replacing the handler releases the module's classes.
+            manager.getCommandCompletions().registerCompletion(key, context -> Collections.emptyList());
+        }
+    }
+    
+    public void unregisterAsyncCompletion(String key) {
+        asyncCompletions.remove(key);
+        if (manager != null) {
+            manager.getCommandCompletions().registerAsyncCompletion(key, context -> Collections.emptyList());
+        }
+    }
+    
+    public void unregisterContext(Class toResolve) {
+        contexts.remove(toResolve);
+        if (manager == null) {
+            return;
+        }
+        // ACF can't remove contexts, the resolver would keep the module's classes loaded otherwise.
+        try {
+            Field contextMap = CommandContexts.class.getDeclaredField("contextMap");
+            contextMap.setAccessible(true);
+            ((Map<?, ?>) contextMap.get(manager.getCommandContexts())).remove(toResolve);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            LOGGER.log(Level.WARN, "[Module] The command context for " + toResolve.getName() + " couldn't be unregistered.");
+        }
+    }
+    
     public static CommandHandler getInstance() {
         return instance;
     }
@@ -0,0 +1,132 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.commands;
+
+import co.aikar.commands.annotation.CommandAlias;
+import co.aikar.commands.annotation.CommandPermission;
+import co.aikar.commands.annotation.Default;
+import co.aikar.commands.annotation.Description;
+import co.aikar.commands.annotation.Subcommand;
+import co.aikar.commands.annotation.Syntax;
+import com.dreamhorizon.core.commands.implementation.DHCommand;
+import com.dreamhorizon.core.configuration.enums.Message;
+import com.dreamhorizon.core.database.DatabaseHandler;
+import com.dreamhorizon.core.database.ModuleBulkhead;
+import com.dreamhorizon.core.database.QueryCache;
+import com.dreamhorizon.core.database.implementation.QueryStatistics;
+import com.dreamhorizon.core.helper.MessageHelper;
+import org.bukkit.command.CommandSender;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+@SuppressWarnings("unused")
+@CommandAlias("dhdatabase|dhdb")
+@Description("Database administration command")
+@CommandPermission("dhcore.command.database")
+public class DatabaseCommand extends DHCommand {
+    
+    @Subcommand("top")
+    @Description("Shows the statements which took the most time in total")
+    @Syntax("(amount)")
+    @CommandPermission("dhcore.database.top")
+    public static void onDatabaseTop(CommandSender sender, @Default(value = "10") int amount) {
+        List<QueryStatistics.StatementStatistics> top = DatabaseHandler.getInstance().getQueryInstrumentation().getStatistics().getTop(Math.max(1, amount));
+        HashMap<String, Object> placeholders = new HashMap<>();
+        placeholders.put("amount", top.size());
+        sender.sendMessage(MessageHelper.formatMessage(placeholders, Message.DATABASE_TOP_HEADER));
+        int rank = 1;
+        for (QueryStatistics.StatementStatistics statement : top) {
+            placeholders.put("rank", rank++);
+            placeholders.put("module", statement.getModule());
+            placeholders.put("totalTime", String.format("%.1f", statement.getLatency().getTotalMillis()));
+            placeholders.put("executions", statement.getLatency().getExecutions());
+            placeholders.put("averageTime", String.format("%.2f", statement.getLatency().getAverageMillis()));
+            placeholders.put("p99Time", String.format("%.2f", statement.getLatency().getPercentileMillis(0.99)));
+            placeholders.put("rows", statement.getRows());
+            placeholders.put("sql", statement.getSql());
+            sender.sendMessage(MessageHelper.formatMessage(placeholders, Message.DATABASE_TOP_ELEMENT));
+        }
+    }
+    
+    @Subcommand("bulkheads")
+    @Description("Shows the connection usage and queues of every module")
+    @CommandPermission("dhcore.database.bulkheads")
+    public static void onDatabaseBulkheads(CommandSender sender) {
+        List<ModuleBulkhead> bulkheads = new ArrayList<>(DatabaseHandler.getInstance().getBulkheads());
+        HashMap<String, Object> placeholders = new HashMap<>();
+        if (bulkheads.isEmpty()) {
+            sender.sendMessage(MessageHelper.formatMessage(placeholders, Message.DATABASE_BULKHEADS_EMPTY));
+            return;
+        }
+        bulkheads.sort(Comparator.comparing(ModuleBulkhead::getModuleName));
+        sender.sendMessage(MessageHelper.formatMessage(placeholders, Message.DATABASE_BULKHEADS_HEADER));
+        for (ModuleBulkhead bulkhead : bulkheads) {
+            placeholders.put("moduleName", bulkhead.getModuleName());
+            placeholders.put("inUse", bulkhead.getConnectionsInUse());
+            placeholders.put("maximum", bulkhead.getMaximumConnections());
+            placeholders.put("saturation", Math.round(bulkhead.getSaturation() * 100));
+            placeholders.put("waiting", bulkhead.getWaitingThreads());
+            placeholders.put("queueDepth", bulkhead.getExecutor().getQueueDepth());
+            placeholders.put("queueCapacity", bulkhead.getExecutor().getQueueCapacity());
+            placeholders.put("rejected", bulkhead.getExecutor().getRejectedTasks());
+            placeholders.put("timeouts", bulkhead.getAcquireTimeouts());
+            sender.sendMessage(MessageHelper.formatMessage(placeholders, Message.DATABASE_BULKHEADS_ELEMENT));
+        }
+    }
+    
+    @Subcommand("cache")
+    @Description("Shows the query cache's statistics")
+    @CommandPermission("dhcore.database.cache")
+    public static void onDatabaseCache(CommandSender sender) {
+        QueryCache queryCache = DatabaseHandler.getInstance().getQueryCache();
+        HashMap<String, Object> placeholders = new HashMap<>();
+        placeholders.put("size", queryCache.getSize());
+        placeholders.put("maximum", queryCache.getMaximumSize());
+        placeholders.put("hitRate", String.format("%.1f", queryCache.getHitRate() * 100));
+        placeholders.put("hits", queryCache.getHits());
+        placeholders.put("misses", queryCache.getMisses());
+        placeholders.put("bypasses", queryCache.getBypasses());
+        placeholders.put("invalidations", queryCache.getInvalidations());
+        placeholders.put("evictions", queryCache.getEvictions());
+        sender.sendMessage(MessageHelper.formatMessage(placeholders, Message.DATABASE_CACHE_STATISTICS));
+    }
+    
+    @Subcommand("cache clear")
+    @Description("Removes all cached query results")
+    @CommandPermission("dhcore.database.cache")
+    public static void onDatabaseCacheClear(CommandSender sender) {
+        DatabaseHandler.getInstance().getQueryCache().invalidateAll();
+        sender.sendMessage(MessageHelper.formatMessage(new HashMap<>(), Message.DATABASE_CACHE_CLEARED));
+    }
+    
+    @Subcommand("reset")
+    @Description("Resets the statement statistics")
+    @CommandPermission("dhcore.database.reset")
+    public static void onDatabaseReset(CommandSender sender) {
+        DatabaseHandler.getInstance().getQueryInstrumentation().getStatistics().reset();
+        sender.sendMessage(MessageHelper.formatMessage(new HashMap<>(), Message.DATABASE_RESET));
+    }
+}
@@ -23,18 +23,25 @@ import co.aikar.commands.annotation.CommandCompletion;
 import co.aikar.commands.annotation.CommandPermission;
 import co.aikar.commands.annotation.Default;
 import co.aikar.commands.annotation.Description;
+import co.aikar.commands.annotation.Optional;
 import co.aikar.commands.annotation.Subcommand;
 import co.aikar.commands.annotation.Syntax;
 import com.dreamhorizon.core.commands.implementation.DHCommand;
 import com.dreamhorizon.core.configuration.enums.Message;
 import com.dreamhorizon.core.helper.MessageHelper;
 import com.dreamhorizon.core.modulation.ModuleHandler;
+import com.dreamhorizon.core.modulation.implementation.ListenerStatistics;
 import com.dreamhorizon.core.modulation.implementation.ModuleEntry;
+import com.dreamhorizon.core.modulation.implementation.ModuleExecutor;
+import com.dreamhorizon.core.tasks.TickJobScheduler;
 import com.dreamhorizon.core.util.PaginationUtil;
 import org.bukkit.command.CommandSender;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * @author Lukas Mansour
@@ -54,14 +61,15 @@ public class ModuleCommand extends DHCommand {
         if (page == 0) {
             page = 1;
         }
-        List<ModuleEntry> paginatedModules = PaginationUtil.getPage(ModuleHandler.getInstance().getModuleEntries(), page, 8);
-        int maxPage = (int) Math.ceil(paginatedModules.size() / 8.0);
+        List<ModuleEntry> moduleEntries = ModuleHandler.getInstance().getRegistry().getEntriesByName();
+        int maxPage = (int) Math.ceil(moduleEntries.size() / 8.0);
         if (maxPage == 0) {
             maxPage = 1;
         }
         if (page > maxPage) {
             page = maxPage;
         }
+        List<ModuleEntry> paginatedModules = PaginationUtil.getPage(moduleEntries, page, 8);
         
         HashMap<String, Object> placeholders = new HashMap<>();
         placeholders.put("page", page);
@@ -140,5 +148,123 @@ public class ModuleCommand extends DHCommand {
         sender.sendMessage(MessageHelper.formatMessage(placeholders, Message.MODULE_DISABLE_DISABLED));
     }
     
+    @Subcommand("reload")
+    @Description("Reloads a module from its jar")
+    @Syntax("[module]")
+    @CommandCompletion("@modules")
+    @CommandPermission("dhcore.modules.reload")
+    public static void onModuleReload(CommandSender sender, ModuleEntry moduleEntry) {
+        HashMap<String, Object> placeholders = new HashMap<>();
+        placeholders.put("moduleName", moduleEntry.getName());
+        placeholders.put("moduleAuthor", moduleEntry.getAuthor());
+        if (!moduleEntry.isReloadable()) {
+            sender.sendMessage(MessageHelper.formatMessage(placeholders, Message.MODULE_RELOAD_NOT_RELOADABLE));
+            return;
+        }
+        List<ModuleEntry> dependents = ModuleHandler.getInstance().getReloadBlockingDependents(moduleEntry);
+        if (!dependents.isEmpty()) {
+            placeholders.put("dependents", dependents.stream().map(ModuleEntry::getName).collect(Collectors.joining(", ")));
+            sender.sendMessage(MessageHelper.formatMessage(placeholders, Message.MODULE_RELOAD_HAS_DEPENDENTS));
+            return;
+        }
+        if (ModuleHandler.getInstance().reloadModule(moduleEntry) == null) {
+            sender.sendMessage(MessageHelper.formatMessage(placeholders, Message.MODULE_RELOAD_FAILED));
+            return;
+        }
+        sender.sendMessage(MessageHelper.formatMessage(placeholders, Message.MODULE_RELOAD_RELOADED));
+    }
+    
+    @Subcommand("executors")
+    @Description("Shows the asynchronous tasks of every module")
+    @CommandPermission("dhcore.modules.executors")
+    public static void onModuleExecutors(CommandSender sender) {
+        List<ModuleExecutor> executors = ModuleHandler.getInstance().getAsyncExecutors();
+        HashMap<String, Object> placeholders = new HashMap<>();
+        if (executors.isEmpty()) {
+            sender.sendMessage(MessageHelper.formatMessage(placeholders, Message.MODULE_EXECUTORS_EMPTY));
+            return;
+        }
+        executors.sort(Comparator.comparing(ModuleExecutor::getModuleName));
+        sender.sendMessage(MessageHelper.formatMessage(placeholders, Message.MODULE_EXECUTORS_HEADER));
+        for (ModuleExecutor executor : executors) {
+            placeholders.put("moduleName", executor.getModuleName());
+            placeholders.put("active", executor.getActiveTasks());
+            placeholders.put("queueDepth", executor.getQueueDepth());
+            placeholders.put("maximum", executor.getMaximumTasks());
+            placeholders.put("completed", executor.getCompletedTasks());
+            placeholders.put("failed", executor.getFailedTasks());
+            placeholders.put("rejected", executor.getRejectedTasks());
+            placeholders.put("averageQueueTime", String.format("%.2f", executor.getAverageQueueMillis()));
+            placeholders.put("threads", executor.isVirtual() ? "virtual" : "shared");
+            sender.sendMessage(MessageHelper.formatMessage(placeholders, Message.MODULE_EXECUTORS_ELEMENT));
+        }
+    }
+    
+    @Subcommand("jobs")
+    @Description("Shows the chunked jobs and budget overruns of every module")
+    @CommandPermission("dhcore.modules.jobs")
+    public static void onModuleJobs(CommandSender sender) {
+        TickJobScheduler scheduler = TickJobScheduler.getInstance();
+        List<TickJobScheduler.ModuleJobs> moduleJobs = new ArrayList<>(scheduler.getModuleJobs());
+        HashMap<String, Object> placeholders = new HashMap<>();
+        if (moduleJobs.isEmpty()) {
+            sender.sendMessage(MessageHelper.formatMessage(placeholders, Message.MODULE_JOBS_EMPTY));
+            return;
+        }
+        moduleJobs.sort(Comparator.comparing(TickJobScheduler.ModuleJobs::getModuleName));
+        placeholders.put("tickBudget", String.format("%.1f", scheduler.getTickBudgetMillis()));
+        placeholders.put("moduleBudget", String.format("%.1f", scheduler.getModuleBudgetMillis()));
+        placeholders.put("tickOverruns", scheduler.getTickOverruns());
+        sender.sendMessage(MessageHelper.formatMessage(placeholders, Message.MODULE_JOBS_HEADER));
+        for (TickJobScheduler.ModuleJobs jobs : moduleJobs) {
+            placeholders.put("moduleName", jobs.getModuleName());
+            placeholders.put("queued", jobs.getQueuedJobs());
+            placeholders.put("completed", jobs.getCompletedJobs());
+            placeholders.put("chunks", jobs.getChunks());
+            placeholders.put("totalTime", String.format("%.1f", jobs.getTotalMillis()));
+            placeholders.put("overruns", jobs.getOverruns());
+            placeholders.put("worstOverrun", String.format("%.2f", jobs.getWorstOverrunMillis()));
+            sender.sendMessage(MessageHelper.formatMessage(placeholders, Message.MODULE_JOBS_ELEMENT));
+        }
+    }
+    
+    @Subcommand("profile reset")
+    @Description("Resets the event handler timings")
+    @CommandPermission("dhcore.modules.profile")
+    public static void onModuleProfileReset(CommandSender sender) {
+        ModuleHandler.getInstance().getListenerStatistics().reset();
+        sender.sendMessage(MessageHelper.formatMessage(new HashMap<>(), Message.MODULE_PROFILE_RESET));
+    }
+    
+    @Subcommand("profile")
+    @Description("Shows the event handlers which took the most time in total")
+    @Syntax("(module)")
+    @CommandCompletion("@modules")
+    @CommandPermission("dhcore.modules.profile")
+    public static void onModuleProfile(CommandSender sender, @Optional ModuleEntry moduleEntry) {
+        String moduleName = moduleEntry == null ? null : moduleEntry.getName();
+        List<ListenerStatistics.HandlerStatistics> top = ModuleHandler.getInstance().getListenerStatistics().getTop(moduleName, 10);
+        HashMap<String, Object> placeholders = new HashMap<>();
+        placeholders.put("moduleName", moduleName == null ? "all modules" : moduleName);
+        if (top.isEmpty()) {
+            sender.sendMessage(MessageHelper.formatMessage(placeholders, Message.MODULE_PROFILE_EMPTY));
+            return;
+        }
+        placeholders.put("amount", top.size());
+        sender.sendMessage(MessageHelper.formatMessage(placeholders, Message.MODULE_PROFILE_HEADER));
+        int rank = 1;
+        for (ListenerStatistics.HandlerStatistics handler : top) {
+            placeholders.put("rank", rank++);
+            placeholders.put("moduleName", handler.getModule());
+            placeholders.put("event", handler.getEvent());
+            placeholders.put("handler", handler.getHandler());
+            placeholders.put("totalTime", String.format("%.1f", handler.getLatency().getTotalMillis()));
+            placeholders.put("executions", handler.getLatency().getExecutions());
+            placeholders.put("averageTime", String.format("%.2f", handler.getLatency().getAverageMillis()));
+            placeholders.put("p99Time", String.format("%.2f", handler.getLatency().getPercentileMillis(0.99)));
+            sender.sendMessage(MessageHelper.formatMessage(placeholders, Message.MODULE_PROFILE_ELEMENT));
+        }
+    }
+    
     
 }
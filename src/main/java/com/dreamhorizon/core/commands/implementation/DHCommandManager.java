@@ -0,0 +1,46 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.commands.implementation;
+
+import co.aikar.commands.BaseCommand;
+import co.aikar.commands.BukkitCommandOperationContext;
+import co.aikar.commands.CommandIssuer;
+import co.aikar.commands.PaperCommandManager;
+import com.dreamhorizon.core.modulation.ModuleHandler;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Command manager which enables lazy modules before any of their commands is executed or tab completed.
+ * ACF creates an operation context for every execution and completion, no matter if the command was typed,
+ * dispatched by another plugin or found through a replaced alias.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public class DHCommandManager extends PaperCommandManager {
+    public DHCommandManager(Plugin plugin) {
+        super(plugin);
+    }
+    
+    @Override
+    public BukkitCommandOperationContext createCommandOperationContext(BaseCommand command, CommandIssuer issuer, String commandLabel, String[] args, boolean isAsync) {
+        ModuleHandler.getInstance().activateForCommand(command, isAsync);
+        return super.createCommandOperationContext(command, issuer, commandLabel, args, isAsync);
+    }
+}
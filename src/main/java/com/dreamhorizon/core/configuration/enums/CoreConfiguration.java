@@ -21,6 +21,8 @@ package com.dreamhorizon.core.configuration.enums;
 import com.dreamhorizon.core.configuration.implementation.ConfigurationNode;
 import com.dreamhorizon.core.configuration.implementation.ConfigurationSection;
 
+import java.util.ArrayList;
+
 /**
  * @author Lukas Mansour
  * @since 1.0
@@ -41,7 +43,8 @@ public enum CoreConfiguration implements ConfigurationNode {
         "# | Database Configuration | #",
         "# +------------------------+ #",
         "##############################",
-        "# Valid DB types: mysql"
+        "# Valid DB types: mysql, h2, sqlite",
+        "# h2 and sqlite are embedded, they are stored in plugins/DHCore/database and ignore the hostname and port."
     ),
     DATABASE_TABLE_PREFIX("database.table_prefix", "DHCORE_",
         "# Database table prefix."),
@@ -55,13 +58,187 @@ public enum CoreConfiguration implements ConfigurationNode {
         "# Database port."
     ),
     DATABASE_SCHEMA_NAME("database.schema", "minecraft",
-        "# Database schema."
+        "# Database schema, or the file name for embedded databases."
     ),
     DATABASE_USERNAME("database.username", "root",
         "# Database username."
     ),
     DATABASE_PASSWORD("database.password", "password",
         "# Database password."
+    ),
+    DATABASE_SCHEMA_FORCE_CHECK("database.schema_force_check", false,
+        "# Compare every changeset with the database on startup, even if no changelog changed."
+    ),
+    DATABASE_SLOW_QUERY_THRESHOLD("database.slow_query_threshold", 100,
+        "# Milliseconds after which a statement is written to logs/SlowQueries.log, 0 disables the log."
+    ),
+    DATABASE_ATTRIBUTION_SAMPLE_RATE("database.attribution_sample_rate", 100,
+        "# Statements run outside of a module's tasks, bulkhead or event handlers are attributed to a module by their stack.",
+        "# One in this many of those statements walks the stack, 1 walks it for every statement."
+    ),
+    DATABASE_STREAM_FETCH_SIZE("database.stream_fetch_size", 500,
+        "# Amount of rows fetched at once by streaming queries, which never hold their whole result in memory.",
+        "# MySQL ignores this and streams the rows one by one."
+    ),
+    DATABASE_POOL_SECTION("database.pool", new ConfigurationSection(),
+        "# Connection pool settings."
+    ),
+    DATABASE_POOL_MINIMUM_IDLE("database.pool.minimum_idle", 2,
+        "# Minimum amount of idle connections kept open in the pool."
+    ),
+    DATABASE_POOL_MAXIMUM_SIZE("database.pool.maximum_size", 10,
+        "# Maximum amount of connections in the pool, idle and in use."
+    ),
+    DATABASE_POOL_IDLE_TIMEOUT("database.pool.idle_timeout", 600000,
+        "# Milliseconds a connection above the minimum idle amount may stay idle before it is closed."
+    ),
+    DATABASE_POOL_MAX_LIFETIME("database.pool.max_lifetime", 1800000,
+        "# Maximum lifetime of a connection in milliseconds."
+    ),
+    DATABASE_POOL_CONNECTION_TIMEOUT("database.pool.connection_timeout", 30000,
+        "# Milliseconds to wait for a connection from the pool before failing."
+    ),
+    DATABASE_POOL_VALIDATION_QUERY("database.pool.validation_query", "",
+        "# Query used to validate connections, leave empty to use the JDBC4 validation."
+    ),
+    DATABASE_POOL_LEAK_DETECTION_THRESHOLD("database.pool.leak_detection_threshold", 0,
+        "# Milliseconds a connection may be out of the pool before a possible leak is logged.",
+        "# 0 disables leak detection."
+    ),
+    DATABASE_REPLICAS_SECTION("database.replicas", new ConfigurationSection(),
+        "# Read replicas, writes and schema updates always use the primary database above."
+    ),
+    DATABASE_REPLICAS_ENDPOINTS("database.replicas.endpoints", new ArrayList<>(),
+        "# Replicas as hostname:port or as full JDBC URLs, e.g. for embedded databases.",
+        "# Leave empty to read from the primary database."
+    ),
+    DATABASE_REPLICAS_MAX_LAG("database.replicas.max_lag", 5,
+        "# Seconds a replica may lag behind before reads fall back to other replicas or the primary."
+    ),
+    DATABASE_REPLICAS_RETRY_DELAY("database.replicas.retry_delay", 30,
+        "# Seconds before a failed replica is used again."
+    ),
+    DATABASE_REPLICAS_CHECK_INTERVAL("database.replicas.check_interval", 10,
+        "# Seconds between replica health and lag checks."
+    ),
+    DATABASE_ASYNC_SECTION("database.async", new ConfigurationSection(),
+        "# Asynchronous database worker settings."
+    ),
+    DATABASE_ASYNC_THREADS("database.async.threads", 4,
+        "# Amount of worker threads, this should not exceed the pool's maximum size."
+    ),
+    DATABASE_ASYNC_QUEUE_SIZE("database.async.queue_size", 1000,
+        "# Maximum amount of queued tasks before new tasks are rejected."
+    ),
+    DATABASE_ASYNC_SHUTDOWN_TIMEOUT("database.async.shutdown_timeout", 10000,
+        "# Milliseconds to wait for queued tasks to finish when the server shuts down."
+    ),
+    DATABASE_BULKHEADS_SECTION("database.bulkheads", new ConfigurationSection(),
+        "# Per module limits, so that a single module can't use up all connections and workers."
+    ),
+    DATABASE_BULKHEADS_CONNECTIONS("database.bulkheads.connections", 2,
+        "# Default amount of connections a module may use at once."
+    ),
+    DATABASE_BULKHEADS_RESERVED_CONNECTIONS("database.bulkheads.reserved_connections", 2,
+        "# Connections of the pool which only the core may use, the modules share the rest."
+    ),
+    DATABASE_BULKHEADS_QUEUE_SIZE("database.bulkheads.queue_size", 200,
+        "# Default amount of queued tasks of a module before its new tasks are rejected."
+    ),
+    DATABASE_BULKHEADS_OVERRIDES("database.bulkheads.overrides", new ArrayList<>(),
+        "# Limits of specific modules as ModuleName:connections:queue_size, e.g. Stats:4:500."
+    ),
+    DATABASE_QUERY_CACHE_SECTION("database.query_cache", new ConfigurationSection(),
+        "# Cache for results of queries, which only read prefixed tables.",
+        "# Entries are invalidated by writes of this server, writes of other servers are only seen once entries expire."
+    ),
+    DATABASE_QUERY_CACHE_MAXIMUM_SIZE("database.query_cache.maximum_size", 1000,
+        "# Maximum amount of cached results, 0 disables the cache."
+    ),
+    DATABASE_QUERY_CACHE_EXPIRE_AFTER("database.query_cache.expire_after", 300,
+        "# Seconds after which a cached result expires, 0 keeps results until they are invalidated or evicted."
+    ),
+    DATABASE_WRITE_BEHIND_SECTION("database.write_behind", new ConfigurationSection(),
+        "# Buffered model writes, which are flushed as batches."
+    ),
+    DATABASE_WRITE_BEHIND_FLUSH_INTERVAL("database.write_behind.flush_interval", 5,
+        "# Seconds between flushes of buffered writes."
+    ),
+    DATABASE_WRITE_BEHIND_FLUSH_THRESHOLD("database.write_behind.flush_threshold", 500,
+        "# Amount of buffered rows which triggers a flush before the interval is over."
+    ),
+    DATABASE_WRITE_BEHIND_MAX_PENDING_ROWS("database.write_behind.max_pending_rows", 10000,
+        "# Amount of buffered rows at which writes to rows which aren't buffered yet are rejected, 0 disables the limit."
+    ),
+    DATABASE_WRITE_BEHIND_MAX_ROW_FAILURES("database.write_behind.max_row_failures", 5,
+        "# Failed attempts after which a buffered row is dropped and logged."
+    ),
+    DATABASE_PLAYER_CACHE_SECTION("database.player_cache", new ConfigurationSection(),
+        "# Cache of player rows, online players are always cached."
+    ),
+    DATABASE_PLAYER_CACHE_MAXIMUM_SIZE("database.player_cache.maximum_size", 1000,
+        "# Maximum amount of offline players kept in the cache."
+    ),
+    DATABASE_PLAYER_CACHE_EXPIRE_AFTER_QUIT("database.player_cache.expire_after_quit", 300,
+        "# Seconds a player stays cached after quitting, 0 evicts players when they quit.",
+        "# This should be longer than the write-behind flush interval."
+    ),
+    DATABASE_PLAYER_CACHE_LOOKUP_CHUNK_SIZE("database.player_cache.lookup_chunk_size", 500,
+        "# Maximum amount of players loaded by a single query of a bulk lookup, chunks are queried in parallel."
+    ),
+    MODULES_SECTION("modules", new ConfigurationSection(),
+        " ",
+        "#############################",
+        "# +-----------------------+ #",
+        "# | Modules Configuration | #",
+        "# +-----------------------+ #",
+        "#############################"
+    ),
+    MODULES_ASYNC_VIRTUAL_THREADS("modules.async_virtual_threads", true,
+        "# Whether the modules' asynchronous tasks run on virtual threads, this requires Java 21 or newer."
+    ),
+    MODULES_ASYNC_THREADS("modules.async_threads", 0,
+        "# Threads of the pool shared by the modules' asynchronous tasks without virtual threads, 0 uses one per processor."
+    ),
+    MODULES_ASYNC_QUEUE_SIZE("modules.async_queue_size", 1000,
+        "# Maximum amount of unfinished asynchronous tasks of a module, further tasks are rejected."
+    ),
+    MODULES_ASYNC_SHUTDOWN_TIMEOUT("modules.async_shutdown_timeout", 10000,
+        "# Milliseconds to wait for a module's asynchronous tasks when it's disabled.",
+        "# When the server stops, this is the time to wait for the tasks of all modules together."
+    ),
+    SCHEDULER_SECTION("scheduler", new ConfigurationSection(),
+        " ",
+        "###############################",
+        "# +-------------------------+ #",
+        "# | Scheduler Configuration | #",
+        "# +-------------------------+ #",
+        "###############################",
+        "# Chunked jobs of modules run on the main thread within these budgets, unfinished jobs continue next tick."
+    ),
+    SCHEDULER_TICK_BUDGET("scheduler.tick_budget", 10.0,
+        "# Milliseconds per tick which all jobs may use together."
+    ),
+    SCHEDULER_MODULE_BUDGET("scheduler.module_budget", 4.0,
+        "# Milliseconds per tick which the jobs of a single module may use."
+    ),
+    WATCHDOG_SECTION("watchdog", new ConfigurationSection(),
+        " ",
+        "##############################",
+        "# +------------------------+ #",
+        "# | Watchdog Configuration | #",
+        "# +------------------------+ #",
+        "##############################",
+        "# Reports main thread stalls and the modules causing them to logs/Watchdog.log."
+    ),
+    WATCHDOG_ENABLED("watchdog.enabled", true,
+        "# Whether the main thread is watched."
+    ),
+    WATCHDOG_THRESHOLD("watchdog.threshold", 200,
+        "# Milliseconds a tick or an operation of a module may take before it's reported as a stall."
+    ),
+    WATCHDOG_SAMPLE_INTERVAL("watchdog.sample_interval", 20,
+        "# Milliseconds between samples of the main thread's stack during a stall."
     );
     
     private final String path;
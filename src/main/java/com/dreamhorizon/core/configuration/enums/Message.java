@@ -38,7 +38,29 @@ public enum Message implements ConfigurationNode {
     MODULE_ENABLE_ALREADY_ENABLED("module_enable_already_enabled", "&cModule 6{moduleName} &cis already enabled!"),
     MODULE_ENABLE_ENABLED("module_enable_enabled", "&cModule &6{moduleName} &cwas successfully enabled!"),
     MODULE_DISABLE_ALREADY_DISABLED("module_disable_already_disabled", "&cModule 6{moduleName} &cis already disabled!"),
-    MODULE_DISABLE_DISABLED("module_disable_disabled", "&cModule &6{moduleName} &cwas successfully disabled!");
+    MODULE_DISABLE_DISABLED("module_disable_disabled", "&cModule &6{moduleName} &cwas successfully disabled!"),
+    MODULE_RELOAD_NOT_RELOADABLE("module_reload_not_reloadable", "&cModule &6{moduleName} &ccontains database models and can only be updated with a restart!"),
+    MODULE_RELOAD_HAS_DEPENDENTS("module_reload_has_dependents", "&cModule &6{moduleName} &ccan't be reloaded while these modules depend on it: &6{dependents}"),
+    MODULE_RELOAD_FAILED("module_reload_failed", "&cModule &6{moduleName} &ccouldn't be reloaded, see the console for details!"),
+    MODULE_RELOAD_RELOADED("module_reload_reloaded", "&cModule &6{moduleName} &cwas successfully reloaded!"),
+    MODULE_PROFILE_HEADER("module_profile_header", "&7----- &9Top {amount} event handlers of &6{moduleName} &9by total time &7-----"),
+    MODULE_PROFILE_ELEMENT("module_profile_element", "&9#{rank} &6{totalTime}ms &9total, &6{executions} &9calls, avg &6{averageTime}ms&9, p99 &6{p99Time}ms&9, module &6{moduleName}&9: &6{event} &7{handler}"),
+    MODULE_PROFILE_EMPTY("module_profile_empty", "&cNo event handler of &6{moduleName} &chas been called yet."),
+    MODULE_PROFILE_RESET("module_profile_reset", "&9The event handler timings have been reset."),
+    MODULE_EXECUTORS_HEADER("module_executors_header", "&7----- &9Module executors &7-----"),
+    MODULE_EXECUTORS_ELEMENT("module_executors_element", "&6{moduleName}&9: &6{active} &9running, queue &6{queueDepth}&9, limit &6{maximum}&9, &6{completed} &9done, &6{failed} &9failed, &6{rejected} &9rejected, avg wait &6{averageQueueTime}ms&9, threads &6{threads}"),
+    MODULE_EXECUTORS_EMPTY("module_executors_empty", "&cNo module has used its executor yet."),
+    MODULE_JOBS_HEADER("module_jobs_header", "&7----- &9Module jobs, &6{tickBudget}ms &9per tick, &6{moduleBudget}ms &9per module, &6{tickOverruns} &9ticks over budget &7-----"),
+    MODULE_JOBS_ELEMENT("module_jobs_element", "&6{moduleName}&9: &6{queued} &9queued, &6{completed} &9done, &6{chunks} &9chunks in &6{totalTime}ms&9, &6{overruns} &9overruns, worst &6{worstOverrun}ms &9over budget"),
+    MODULE_JOBS_EMPTY("module_jobs_empty", "&cNo module has scheduled a job yet."),
+    DATABASE_TOP_HEADER("database_top_header", "&7----- &9Top {amount} statements by total time &7-----"),
+    DATABASE_TOP_ELEMENT("database_top_element", "&9#{rank} &6{totalTime}ms &9total, &6{executions} &9calls, avg &6{averageTime}ms&9, p99 &6{p99Time}ms&9, rows &6{rows}&9, module &6{module}&9: &7{sql}"),
+    DATABASE_RESET("database_reset", "&9The statement statistics have been reset."),
+    DATABASE_BULKHEADS_HEADER("database_bulkheads_header", "&7----- &9Module bulkheads &7-----"),
+    DATABASE_BULKHEADS_ELEMENT("database_bulkheads_element", "&6{moduleName}&9: &6{inUse}&9/&6{maximum} &9connections (&6{saturation}%&9), &6{waiting} &9waiting, queue &6{queueDepth}&9/&6{queueCapacity}&9, &6{rejected} &9rejected, &6{timeouts} &9timed out"),
+    DATABASE_BULKHEADS_EMPTY("database_bulkheads_empty", "&cNo module has used the database yet."),
+    DATABASE_CACHE_STATISTICS("database_cache_statistics", "&9Query cache: &6{size}&9/&6{maximum} &9entries, hit rate &6{hitRate}%&9, &6{hits} &9hits, &6{misses} &9misses, &6{bypasses} &9uncacheable, &6{invalidations} &9invalidations, &6{evictions} &9evictions"),
+    DATABASE_CACHE_CLEARED("database_cache_cleared", "&9The query cache has been cleared.");
     
     private final String path;
     private final Object defaultValue;
@@ -18,14 +18,25 @@
 
 package com.dreamhorizon.core.database;
 
+import com.dreamhorizon.core.DHCore;
 import com.dreamhorizon.core.configuration.ConfigurationHandler;
 import com.dreamhorizon.core.configuration.enums.CoreConfiguration;
 import com.dreamhorizon.core.configuration.implementation.EnumConfiguration;
+import com.dreamhorizon.core.database.implementation.DatabaseExecutor;
+import com.dreamhorizon.core.database.implementation.DatabaseType;
+import com.dreamhorizon.core.database.implementation.ModelIndexProcessor;
+import com.dreamhorizon.core.database.implementation.QueryInstrumentation;
+import com.dreamhorizon.core.database.implementation.ReplicaRouter;
+import com.dreamhorizon.core.database.implementation.ResultSetSpliterator;
 import com.dreamhorizon.core.modulation.ModuleHandler;
 import com.dreamhorizon.core.modulation.implementation.Module;
+import com.dreamhorizon.core.modulation.implementation.ModuleContext;
+import com.dreamhorizon.core.modulation.implementation.ModuleEntry;
 import com.dreamhorizon.core.util.FileUtil;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPool;
 import io.github.classgraph.ClassGraph;
-import io.github.classgraph.ClassInfoList;
 import io.github.classgraph.ScanResult;
 import liquibase.ContextExpression;
 import liquibase.Contexts;
@@ -39,24 +50,58 @@ import liquibase.resource.ClassLoaderResourceAccessor;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.bukkit.Bukkit;
 import org.javalite.activejdbc.DB;
+import org.javalite.activejdbc.DBException;
 import org.javalite.activejdbc.InitException;
 import org.javalite.activejdbc.Model;
 import org.javalite.activejdbc.Registry;
 import org.javalite.activejdbc.annotations.Table;
+import org.jetbrains.annotations.Nullable;
 
+import javax.sql.DataSource;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.math.BigInteger;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author Lukas Mansour
@@ -68,73 +113,103 @@ public class DatabaseHandler {
     private final EnumConfiguration coreConfig = ConfigurationHandler.getInstance().getConfig("core");
     private final String dbTablePrefix = (String) coreConfig.get(CoreConfiguration.DATABASE_TABLE_PREFIX);
     private final DB db;
+    private final HikariDataSource dataSource;
+    private final QueryInstrumentation queryInstrumentation = new QueryInstrumentation(
+        ((Number) coreConfig.get(CoreConfiguration.DATABASE_SLOW_QUERY_THRESHOLD)).longValue(),
+        ((Number) coreConfig.get(CoreConfiguration.DATABASE_ATTRIBUTION_SAMPLE_RATE)).intValue()
+    );
+    private final QueryCache queryCache = new QueryCache(this, dbTablePrefix,
+        ((Number) coreConfig.get(CoreConfiguration.DATABASE_QUERY_CACHE_MAXIMUM_SIZE)).intValue(),
+        ((Number) coreConfig.get(CoreConfiguration.DATABASE_QUERY_CACHE_EXPIRE_AFTER)).longValue() * 1000L
+    );
+    private final DataSource instrumentedDataSource;
+    private final DatabaseExecutor executor;
+    private final PlayerCache playerCache = new PlayerCache(this,
+        ((Number) coreConfig.get(CoreConfiguration.DATABASE_PLAYER_CACHE_MAXIMUM_SIZE)).intValue(),
+        ((Number) coreConfig.get(CoreConfiguration.DATABASE_PLAYER_CACHE_EXPIRE_AFTER_QUIT)).longValue() * 1000L
+    );
+    private final PlayerLoader playerLoader = new PlayerLoader(this, playerCache,
+        ((Number) coreConfig.get(CoreConfiguration.DATABASE_PLAYER_CACHE_LOOKUP_CHUNK_SIZE)).intValue()
+    );
+    private final WriteBehindBuffer writeBehindBuffer = new WriteBehindBuffer(this,
+        ((Number) coreConfig.get(CoreConfiguration.DATABASE_WRITE_BEHIND_FLUSH_THRESHOLD)).intValue(),
+        ((Number) coreConfig.get(CoreConfiguration.DATABASE_WRITE_BEHIND_MAX_PENDING_ROWS)).intValue(),
+        ((Number) coreConfig.get(CoreConfiguration.DATABASE_WRITE_BEHIND_MAX_ROW_FAILURES)).intValue()
+    );
+    private final Executor mainThreadExecutor = task -> {
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+        } else {
+            Bukkit.getScheduler().runTask(DHCore.getPlugin(DHCore.class), task);
+        }
+    };
     private final String username = (String) coreConfig.get(CoreConfiguration.DATABASE_USERNAME);
     private final String password = (String) coreConfig.get(CoreConfiguration.DATABASE_PASSWORD);
-    private String driver;
-    private String jdbcURL;
+    private final File databaseFolder = new File("plugins" + File.separator + "DHCore" + File.separator + "database");
+    private final DatabaseType databaseType;
+    private final String jdbcURL;
+    private final int streamFetchSize = ((Number) coreConfig.get(CoreConfiguration.DATABASE_STREAM_FETCH_SIZE)).intValue();
+    private final Map<String, int[]> bulkheadOverrides = parseBulkheadOverrides();
+    private final Map<String, ModuleBulkhead> bulkheads = new ConcurrentHashMap<>();
+    // Bulkheads which were closed while the server was running and may still have queued work.
+    private final Set<ModuleBulkhead> closedBulkheads = ConcurrentHashMap.newKeySet();
+    // Connections the modules' bulkheads may use together, the rest of the pool is reserved for the core.
+    private final int moduleConnectionLimit = Math.max(1, ((Number) coreConfig.get(CoreConfiguration.DATABASE_POOL_MAXIMUM_SIZE)).intValue()
+        - ((Number) coreConfig.get(CoreConfiguration.DATABASE_BULKHEADS_RESERVED_CONNECTIONS)).intValue());
+    private final Semaphore moduleConnections = new Semaphore(moduleConnectionLimit, true);
+    private final AtomicBoolean bulkheadsOversubscribed = new AtomicBoolean(false);
+    private ReplicaRouter replicaRouter = null;
     
     private DatabaseHandler() {
+        queryInstrumentation.addWriteListener(queryCache::invalidate);
         String dbType = (String) coreConfig.get(CoreConfiguration.DATABASE_TYPE);
-        // Add more DBs if necessary, in that case also use a switch clause for slighty better performance.
-        if ("mysql".equals(dbType.toLowerCase())) {
-            driver = "com.mysql.jdbc.Driver";
-            jdbcURL = "jdbc:mysql://" + coreConfig.get(CoreConfiguration.DATABASE_HOSTNAME)
-                + ":" + coreConfig.get(CoreConfiguration.DATABASE_PORT)
-                + "/" + coreConfig.get(CoreConfiguration.DATABASE_SCHEMA_NAME)
-                + "?verifyServerCertificate=false&useSSL=false&useUnicode=true&characterEncoding=utf-8";
-        } else {
+        databaseType = DatabaseType.fromConfigName(dbType);
+        if (databaseType == null) {
             LOGGER.log(Level.ERROR, "[Database] " + dbType + " is not a valid database type!");
             throw new IllegalArgumentException(dbType + " is not a valid database type!");
         }
+        jdbcURL = databaseType.buildURL(
+            String.valueOf(coreConfig.get(CoreConfiguration.DATABASE_HOSTNAME)),
+            String.valueOf(coreConfig.get(CoreConfiguration.DATABASE_PORT)),
+            String.valueOf(coreConfig.get(CoreConfiguration.DATABASE_SCHEMA_NAME)),
+            databaseFolder
+        );
         
-        File modelsFile = new File("plugins" + File.separator + "DHCore" + File.separator + "database" + File.separator + "models" + File.separator + "activejdbc_models.properties");
+        File modelsFile = new File(databaseFolder + File.separator + "models" + File.separator + "activejdbc_models.properties");
         if (!FileUtil.createFolder(modelsFile.getParentFile())) {
             LOGGER.log(Level.ERROR, "[Database] Failed to create ActiveJDBC models parent file.");
             db = null;
+            dataSource = null;
+            instrumentedDataSource = null;
+            executor = null;
             return;
         }
-        try (ScanResult scanResult = new ClassGraph()
-            .addClassLoader(this.getClass().getClassLoader())
-            .enableClassInfo()
-            .ignoreClassVisibility()
-            .enableAnnotationInfo()
-            .whitelistPackages()
-            .disableDirScanning()
-            .disableNestedJarScanning()
-            .disableModuleScanning()
-            .scan()) {
-            ClassInfoList classInfoList = scanResult.getSubclasses(Model.class.getCanonicalName());
-            if (classInfoList == null || classInfoList.isEmpty()) {
-                LOGGER.log(Level.DEBUG, "[Database] No objects were found for the database.");
-                db = null;
-                return;
-            }
-            
-            try {
-                FileWriter writer = new FileWriter(modelsFile, false);
-                classInfoList.forEach(classInfo -> {
-                    try {
-                        // Use classgraph to get all @Table classes.
-                        // Use the setAnnotation method to update their tables to add the prefix.
-                        setTable(classInfo.loadClass());
-                        // Use Commons Configuration to add them to the model configuration.
-                        writer.write(classInfo.getName() + ":" + "DreamHorizonCore" + System.getProperty("line.separator"));
-                    } catch (IllegalAccessException | NoSuchFieldException e) {
-                        LOGGER.log(Level.ERROR, "[Database] An unexpected error occured while setting object table annotations and instrumentation.");
-                        LOGGER.log(Level.ERROR, e);
-                        e.printStackTrace();
-                    } catch (IOException e) {
-                        LOGGER.log(Level.ERROR, "[Database] An unexpected error occured while creating the ActiveJDBC models file.");
-                        LOGGER.log(Level.ERROR, e);
-                        e.printStackTrace();
-                    }
-                });
-                writer.close();
-            } catch (IOException e) {
-                LOGGER.log(Level.ERROR, "[Database] An unexpected error occured while creating the ActiveJDBC models file.");
-                LOGGER.log(Level.ERROR, e);
-                e.printStackTrace();
+        Set<String> modelClassNames = findModelClassNames();
+        if (modelClassNames.isEmpty()) {
+            LOGGER.log(Level.DEBUG, "[Database] No objects were found for the database.");
+            db = null;
+            dataSource = null;
+            instrumentedDataSource = null;
+            executor = null;
+            return;
+        }
+        try (FileWriter writer = new FileWriter(modelsFile, false)) {
+            for (String modelClassName : modelClassNames) {
+                try {
+                    // Use the setAnnotation method to update their tables to add the prefix.
+                    setTable(Class.forName(modelClassName, true, getClass().getClassLoader()));
+                    // Add them to the model configuration.
+                    writer.write(modelClassName + ":" + "DreamHorizonCore" + System.getProperty("line.separator"));
+                } catch (ClassNotFoundException | IllegalAccessException | NoSuchFieldException e) {
+                    LOGGER.log(Level.ERROR, "[Database] An unexpected error occured while setting object table annotations and instrumentation.");
+                    LOGGER.log(Level.ERROR, e);
+                    e.printStackTrace();
+                }
             }
+        } catch (IOException e) {
+            LOGGER.log(Level.ERROR, "[Database] An unexpected error occured while creating the ActiveJDBC models file.");
+            LOGGER.log(Level.ERROR, e);
+            e.printStackTrace();
         }
         // add the now created properties file to the classpath for ActiveJDBC to see.
         try {
@@ -152,26 +227,662 @@ public class DatabaseHandler {
             e.printStackTrace();
         }
         try {
-            db = new DB("DreamHorizonCore");
             // Connect to DB.
-            db.open(driver, jdbcURL, username, password);
+            dataSource = createDataSource("DreamHorizonCore", jdbcURL, false);
+            instrumentedDataSource = queryInstrumentation.wrap(dataSource);
+            db = new DB("DreamHorizonCore");
             // Liquibase generate Schema.
-            generateSchema(db.connection());
-            db.close();
-        } catch (InitException e) {
+            runWithConnection(session -> generateSchema(session.connection()));
+            executor = new DatabaseExecutor("DHCore-Database",
+                ((Number) coreConfig.get(CoreConfiguration.DATABASE_ASYNC_THREADS)).intValue(),
+                ((Number) coreConfig.get(CoreConfiguration.DATABASE_ASYNC_QUEUE_SIZE)).intValue()
+            );
+            replicaRouter = createReplicaRouter();
+        } catch (InitException | HikariPool.PoolInitializationException e) {
             throw new RuntimeException("Failed to load ActiveJDBC");
         }
     }
     
-    public void open() {
-        db.open(driver, jdbcURL, username, password);
+    /**
+     * Collects the model classes listed in the compile-time model indexes, see {@link ModelIndexProcessor}.
+     * Only jars without an index are scanned with ClassGraph.
+     *
+     * @return {@link Set} of model class names.
+     */
+    private Set<String> findModelClassNames() {
+        ClassLoader classLoader = getClass().getClassLoader();
+        Set<String> modelClassNames = new TreeSet<>();
+        Set<String> indexedJars = new HashSet<>();
+        try {
+            Enumeration<URL> indexes = classLoader.getResources(ModelIndexProcessor.INDEX_PATH);
+            while (indexes.hasMoreElements()) {
+                URL index = indexes.nextElement();
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+                    reader.lines().map(String::trim).filter(line -> !line.isEmpty()).forEach(modelClassNames::add);
+                }
+                indexedJars.add(getJarName(index));
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.ERROR, "[Database] An unexpected error occured while reading the model indexes.");
+            LOGGER.log(Level.ERROR, e);
+            e.printStackTrace();
+        }
+        
+        List<String> unindexedJars = new ArrayList<>();
+        if (classLoader instanceof URLClassLoader) {
+            for (URL url : ((URLClassLoader) classLoader).getURLs()) {
+                String jarName = getJarName(url);
+                if (jarName.endsWith(".jar") && !indexedJars.contains(jarName)) {
+                    unindexedJars.add(jarName);
+                }
+            }
+        }
+        if (!unindexedJars.isEmpty()) {
+            LOGGER.log(Level.DEBUG, "[Database] Scanning jars without a model index: " + String.join(", ", unindexedJars));
+            try (ScanResult scanResult = new ClassGraph()
+                .addClassLoader(classLoader)
+                .enableClassInfo()
+                .ignoreClassVisibility()
+                .enableAnnotationInfo()
+                .whitelistJars(unindexedJars.toArray(new String[0]))
+                .disableDirScanning()
+                .disableNestedJarScanning()
+                .disableModuleScanning()
+                .scan()) {
+                modelClassNames.addAll(scanResult.getSubclasses(Model.class.getCanonicalName())
+                    .filter(classInfo -> classInfo.hasAnnotation(Table.class.getCanonicalName()))
+                    .getNames());
+            }
+        }
+        return modelClassNames;
     }
     
+    private static String getJarName(URL url) {
+        // Resource URLs inside jars look like jar:file:/path/to/module.jar!/META-INF/...
+        String path = url.getPath();
+        int separator = path.indexOf("!/");
+        if (separator != -1) {
+            path = path.substring(0, separator);
+        }
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+    
+    @Nullable
+    private ReplicaRouter createReplicaRouter() {
+        List<?> endpoints = (List<?>) coreConfig.get(CoreConfiguration.DATABASE_REPLICAS_ENDPOINTS);
+        if (endpoints == null || endpoints.isEmpty()) {
+            return null;
+        }
+        List<ReplicaRouter.Replica> replicas = new ArrayList<>();
+        for (Object endpoint : endpoints) {
+            String replicaURL = String.valueOf(endpoint);
+            if (!replicaURL.startsWith("jdbc:")) {
+                String[] hostAndPort = replicaURL.split(":", 2);
+                replicaURL = databaseType.buildURL(
+                    hostAndPort[0],
+                    hostAndPort.length == 2 ? hostAndPort[1] : String.valueOf(coreConfig.get(CoreConfiguration.DATABASE_PORT)),
+                    String.valueOf(coreConfig.get(CoreConfiguration.DATABASE_SCHEMA_NAME)),
+                    databaseFolder
+                );
+            }
+            String name = "DreamHorizonCore-Replica-" + (replicas.size() + 1);
+            replicas.add(new ReplicaRouter.Replica(name, createDataSource(name, replicaURL, true)));
+        }
+        LOGGER.log(Level.INFO, "[Database] Routing reads to " + replicas.size() + " replica(s).");
+        return new ReplicaRouter(databaseType, replicas,
+            ((Number) coreConfig.get(CoreConfiguration.DATABASE_REPLICAS_MAX_LAG)).longValue(),
+            ((Number) coreConfig.get(CoreConfiguration.DATABASE_REPLICAS_RETRY_DELAY)).longValue() * 1000L
+        );
+    }
+    
+    private HikariDataSource createDataSource(String poolName, String url, boolean readOnly) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setDriverClassName(databaseType.getDriver());
+        config.setJdbcUrl(url);
+        config.setReadOnly(readOnly);
+        if (readOnly) {
+            // Replicas may be down at startup, the health check takes care of them.
+            config.setInitializationFailTimeout(-1);
+        }
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMinimumIdle(((Number) coreConfig.get(CoreConfiguration.DATABASE_POOL_MINIMUM_IDLE)).intValue());
+        config.setMaximumPoolSize(((Number) coreConfig.get(CoreConfiguration.DATABASE_POOL_MAXIMUM_SIZE)).intValue());
+        config.setIdleTimeout(((Number) coreConfig.get(CoreConfiguration.DATABASE_POOL_IDLE_TIMEOUT)).longValue());
+        config.setMaxLifetime(((Number) coreConfig.get(CoreConfiguration.DATABASE_POOL_MAX_LIFETIME)).longValue());
+        config.setConnectionTimeout(((Number) coreConfig.get(CoreConfiguration.DATABASE_POOL_CONNECTION_TIMEOUT)).longValue());
+        config.setLeakDetectionThreshold(((Number) coreConfig.get(CoreConfiguration.DATABASE_POOL_LEAK_DETECTION_THRESHOLD)).longValue());
+        String validationQuery = (String) coreConfig.get(CoreConfiguration.DATABASE_POOL_VALIDATION_QUERY);
+        if (validationQuery != null && !validationQuery.isEmpty()) {
+            config.setConnectionTestQuery(validationQuery);
+        }
+        databaseType.configure(config);
+        return new HikariDataSource(config);
+    }
+    
+    /**
+     * Runs the schema update, e.g. after a module with a changelog was reloaded.
+     * It's skipped if nothing the schema depends on changed.
+     */
+    public void updateSchema() {
+        runWithConnection(session -> generateSchema(session.connection()));
+    }
+    
+    /**
+     * Waits for queued asynchronous work and shuts down the connection pool.
+     */
     public void close() {
-        db.close();
+        long shutdownTimeout = ((Number) coreConfig.get(CoreConfiguration.DATABASE_ASYNC_SHUTDOWN_TIMEOUT)).longValue();
+        for (ModuleBulkhead bulkhead : new ArrayList<>(bulkheads.values())) {
+            bulkheads.remove(bulkhead.getModuleName());
+            bulkhead.shutdown();
+            closedBulkheads.add(bulkhead);
+        }
+        // The server is stopping, so the main thread waits for the bulkheads, they all share one deadline.
+        long deadline = System.currentTimeMillis() + shutdownTimeout;
+        for (ModuleBulkhead bulkhead : new ArrayList<>(closedBulkheads)) {
+            awaitBulkhead(bulkhead, Math.max(0, deadline - System.currentTimeMillis()));
+        }
+        if (!executor.shutdown(shutdownTimeout)) {
+            LOGGER.log(Level.WARN, "[Database] Not all queued database tasks finished before the shutdown timeout.");
+        }
+        // Queued tasks may have buffered writes as well.
+        writeBehindBuffer.flush();
+        if (replicaRouter != null) {
+            replicaRouter.close();
+        }
+        dataSource.close();
+    }
+    
+    /**
+     * Runs the specified work with a pooled connection attached to the current thread.
+     * The connection is returned to the pool afterwards, unless the thread already had one attached.
+     * If the thread is working for a module, the connection counts towards the module's bulkhead.
+     *
+     * @param work {@link Function} which receives the {@link DB} the connection is attached to.
+     * @param <T>  type of the work's result.
+     * @return the result of the work.
+     */
+    public <T> T callWithConnection(Function<DB, T> work) {
+        if (db.hasConnection()) {
+            return work.apply(db);
+        }
+        ModuleBulkhead bulkhead = getCallingBulkhead(false);
+        if (bulkhead != null) {
+            return bulkhead.callWithConnection(work);
+        }
+        return connect(work);
+    }
+    
+    <T> T connect(Function<DB, T> work) {
+        if (db.hasConnection()) {
+            return work.apply(db);
+        }
+        db.open(instrumentedDataSource);
+        try {
+            return work.apply(db);
+        } finally {
+            db.close();
+        }
+    }
+    
+    /**
+     * Runs the specified work with a pooled connection attached to the current thread.
+     * The connection is returned to the pool afterwards, unless the thread already had one attached.
+     *
+     * @param work {@link Consumer} which receives the {@link DB} the connection is attached to.
+     */
+    public void runWithConnection(Consumer<DB> work) {
+        callWithConnection(session -> {
+            work.accept(session);
+            return null;
+        });
+    }
+    
+    /**
+     * Runs the specified read-only work with a replica connection attached to the current thread.
+     * Falls back to the primary if no replicas are configured or available, if the work fails on a replica
+     * or if the current thread already has a connection attached.
+     * If the thread is working for a module, the connection counts towards the module's bulkhead.
+     *
+     * @param work {@link Function} which receives the {@link DB} the connection is attached to, it must not write.
+     * @param <T>  type of the work's result.
+     * @return the result of the work.
+     */
+    public <T> T callReadOnly(Function<DB, T> work) {
+        if (db.hasConnection()) {
+            return work.apply(db);
+        }
+        ModuleBulkhead bulkhead = getCallingBulkhead(false);
+        if (bulkhead != null) {
+            return bulkhead.callReadOnly(work);
+        }
+        return connectReadOnly(work);
+    }
+    
+    <T> T connectReadOnly(Function<DB, T> work) {
+        if (replicaRouter == null || db.hasConnection()) {
+            return connect(work);
+        }
+        ReplicaRouter.Replica replica;
+        while ((replica = replicaRouter.nextReplica()) != null) {
+            Connection connection;
+            try {
+                connection = queryInstrumentation.wrap(replica.getConnection());
+            } catch (SQLException e) {
+                replicaRouter.markFailed(replica, e);
+                continue;
+            }
+            db.attach(connection);
+            try {
+                return work.apply(db);
+            } catch (DBException e) {
+                if (isValid(connection)) {
+                    throw e;
+                }
+                // The replica went away, read-only work can safely be retried on the primary.
+                replicaRouter.markFailed(replica, e);
+                break;
+            } finally {
+                db.detach();
+                try {
+                    connection.close();
+                } catch (SQLException ignored) {
+                    // The pool evicts broken connections by itself.
+                }
+            }
+        }
+        return connect(work);
+    }
+    
+    private static boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Runs the specified read-only work with a replica connection attached to the current thread.
+     *
+     * @param work {@link Consumer} which receives the {@link DB} the connection is attached to, it must not write.
+     * @see #callReadOnly(Function)
+     */
+    public void runReadOnly(Consumer<DB> work) {
+        callReadOnly(session -> {
+            work.accept(session);
+            return null;
+        });
+    }
+    
+    /**
+     * Runs the specified read-only work asynchronously on the database worker pool.
+     * Work submitted by a module runs on the module's bulkhead instead.
+     *
+     * @param work {@link Function} which receives the {@link DB} the connection is attached to, it must not write.
+     * @param <T>  type of the work's result.
+     * @return {@link CompletableFuture} completed with the work's result, or exceptionally if it failed or was rejected.
+     * @see #callReadOnly(Function)
+     */
+    public <T> CompletableFuture<T> submitReadOnly(Function<DB, T> work) {
+        ModuleBulkhead bulkhead = getCallingBulkhead(true);
+        if (bulkhead != null) {
+            return bulkhead.submitReadOnly(work);
+        }
+        return executor.submit(() -> connectReadOnly(work));
+    }
+    
+    /**
+     * Runs the specified work asynchronously on the database worker pool.
+     * A pooled connection is attached to the worker for the duration of the work.
+     * Work submitted by a module runs on the module's bulkhead instead.
+     *
+     * @param work {@link Function} which receives the {@link DB} the connection is attached to.
+     * @param <T>  type of the work's result.
+     * @return {@link CompletableFuture} completed with the work's result, or exceptionally if it failed or was rejected.
+     */
+    public <T> CompletableFuture<T> submit(Function<DB, T> work) {
+        ModuleBulkhead bulkhead = getCallingBulkhead(true);
+        if (bulkhead != null) {
+            return bulkhead.submit(work);
+        }
+        return executor.submit(() -> connect(work));
+    }
+    
+    /**
+     * Runs the specified work asynchronously on the database worker pool.
+     * A pooled connection is attached to the worker for the duration of the work.
+     * Work submitted by a module runs on the module's bulkhead instead.
+     *
+     * @param work {@link Consumer} which receives the {@link DB} the connection is attached to.
+     * @return {@link CompletableFuture} completed when the work is done, or exceptionally if it failed or was rejected.
+     */
+    public CompletableFuture<Void> run(Consumer<DB> work) {
+        return submit(session -> {
+            work.accept(session);
+            return null;
+        });
+    }
+    
+    /**
+     * Gets the bulkhead of the module the current thread is working for, see {@link ModuleContext}.
+     * Threads without a module context are only attributed to a module by their stack if requested,
+     * which is only done once per asynchronous submission.
+     *
+     * @param walkStack true to look for a module in the stack if the thread has no module context, false otherwise.
+     * @return {@link ModuleBulkhead} of the calling module, null if the work belongs to the core.
+     */
+    @Nullable
+    private ModuleBulkhead getCallingBulkhead(boolean walkStack) {
+        String moduleName = ModuleContext.getCurrentModule();
+        if (moduleName == null && walkStack) {
+            ModuleEntry moduleEntry = ModuleHandler.getInstance().findCallingModule(Thread.currentThread().getStackTrace());
+            moduleName = moduleEntry == null ? null : moduleEntry.getName();
+        }
+        return moduleName == null ? null : getBulkhead(moduleName);
+    }
+    
+    /**
+     * Runs the specified query on the primary and streams its rows, without loading the whole result into memory.
+     * The query uses a forward-only, read-only cursor with the configured fetch size, MySQL streams the rows one by one instead.
+     * The returned {@link Stream} holds a pooled connection and must be closed, e.g. with try-with-resources.
+     * This blocks while rows are fetched, it should only be used asynchronously.
+     *
+     * @param sql    {@link String} containing the query.
+     * @param params parameters of the query.
+     * @return {@link Stream} of rows, which map the lower case column labels to their values.
+     */
+    public Stream<Map<String, Object>> stream(String sql, Object... params) {
+        Connection connection;
+        try {
+            connection = instrumentedDataSource.getConnection();
+        } catch (SQLException e) {
+            throw new DBException(e);
+        }
+        return stream(connection, sql, params);
+    }
+    
+    /**
+     * Runs the specified query on a replica and streams its rows, without loading the whole result into memory.
+     * Falls back to the primary if no replicas are configured or available.
+     *
+     * @param sql    {@link String} containing the query.
+     * @param params parameters of the query.
+     * @return {@link Stream} of rows, which map the lower case column labels to their values.
+     * @see #stream(String, Object...)
+     */
+    public Stream<Map<String, Object>> streamReadOnly(String sql, Object... params) {
+        if (replicaRouter != null) {
+            ReplicaRouter.Replica replica;
+            while ((replica = replicaRouter.nextReplica()) != null) {
+                Connection connection;
+                try {
+                    connection = queryInstrumentation.wrap(replica.getConnection());
+                } catch (SQLException e) {
+                    replicaRouter.markFailed(replica, e);
+                    continue;
+                }
+                return stream(connection, sql, params);
+            }
+        }
+        return stream(sql, params);
+    }
+    
+    /**
+     * Runs the specified query on the primary and passes its rows one by one to the specified callback.
+     * The connection is returned to the pool once all rows were passed or the callback threw.
+     *
+     * @param sql    {@link String} containing the query.
+     * @param action {@link Consumer} which receives every row.
+     * @param params parameters of the query.
+     * @see #stream(String, Object...)
+     */
+    public void forEachRow(String sql, Consumer<Map<String, Object>> action, Object... params) {
+        try (Stream<Map<String, Object>> rows = stream(sql, params)) {
+            rows.forEach(action);
+        }
+    }
+    
+    /**
+     * Runs the specified query on a replica and passes its rows one by one to the specified callback.
+     *
+     * @param sql    {@link String} containing the query.
+     * @param action {@link Consumer} which receives every row.
+     * @param params parameters of the query.
+     * @see #streamReadOnly(String, Object...)
+     */
+    public void forEachRowReadOnly(String sql, Consumer<Map<String, Object>> action, Object... params) {
+        try (Stream<Map<String, Object>> rows = streamReadOnly(sql, params)) {
+            rows.forEach(action);
+        }
+    }
+    
+    private Stream<Map<String, Object>> stream(Connection connection, String sql, Object[] params) {
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(databaseType.getStreamingFetchSize(streamFetchSize));
+            for (int i = 0; i < params.length; i++) {
+                statement.setObject(i + 1, params[i]);
+            }
+            resultSet = statement.executeQuery();
+            PreparedStatement openStatement = statement;
+            ResultSet openResultSet = resultSet;
+            return StreamSupport.stream(new ResultSetSpliterator(resultSet), false)
+                .onClose(() -> closeQuietly(openResultSet, openStatement, connection));
+        } catch (SQLException e) {
+            closeQuietly(resultSet, statement, connection);
+            throw new DBException(e);
+        }
+    }
+    
+    private static void closeQuietly(AutoCloseable... closeables) {
+        for (AutoCloseable closeable : closeables) {
+            if (closeable == null) {
+                continue;
+            }
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                LOGGER.log(Level.WARN, "[Database] Failed to close a streaming query's resources.", e);
+            }
+        }
+    }
+    
+    /**
+     * Gets the bulkhead of the module with the specified name, creating it if necessary.
+     * Database work of modules goes through their bulkhead, so that they can't starve the other modules or the core.
+     *
+     * @param moduleName {@link String} containing the module's name.
+     * @return {@link ModuleBulkhead} of the module.
+     */
+    public ModuleBulkhead getBulkhead(String moduleName) {
+        ModuleBulkhead bulkhead = bulkheads.get(moduleName);
+        if (bulkhead != null) {
+            return bulkhead;
+        }
+        bulkhead = bulkheads.computeIfAbsent(moduleName, name -> {
+            int[] limits = bulkheadOverrides.get(name.toLowerCase());
+            if (limits == null) {
+                limits = new int[]{
+                    ((Number) coreConfig.get(CoreConfiguration.DATABASE_BULKHEADS_CONNECTIONS)).intValue(),
+                    ((Number) coreConfig.get(CoreConfiguration.DATABASE_BULKHEADS_QUEUE_SIZE)).intValue()
+                };
+            }
+            return new ModuleBulkhead(this, name, limits[0], limits[1],
+                ((Number) coreConfig.get(CoreConfiguration.DATABASE_POOL_CONNECTION_TIMEOUT)).longValue(), moduleConnections);
+        });
+        int budgets = bulkheads.values().stream().mapToInt(ModuleBulkhead::getMaximumConnections).sum();
+        if (budgets > moduleConnectionLimit && bulkheadsOversubscribed.compareAndSet(false, true)) {
+            LOGGER.log(Level.WARN, "[Database] The modules' bulkheads allow " + budgets + " connections, but only " + moduleConnectionLimit
+                + " connections of the pool aren't reserved for the core. Modules will wait for each other's connections,"
+                + " raise database.pool.maximum_size or lower the bulkheads' connections.");
+        }
+        return bulkhead;
+    }
+    
+    /**
+     * Gets the bulkhead of the specified module, creating it if necessary.
+     *
+     * @param module {@link Module} which was loaded by the {@link ModuleHandler}.
+     * @return {@link ModuleBulkhead} of the module.
+     * @throws IllegalArgumentException if the module wasn't loaded by the {@link ModuleHandler}.
+     * @see #getBulkhead(String)
+     */
+    public ModuleBulkhead getBulkhead(Module module) {
+        ModuleEntry moduleEntry = ModuleHandler.getInstance().getModuleEntry(module);
+        if (moduleEntry == null) {
+            throw new IllegalArgumentException("Module " + module.getClass().getName() + " wasn't loaded by the module handler.");
+        }
+        return getBulkhead(moduleEntry.getName());
+    }
+    
+    /**
+     * Closes the bulkhead of the module with the specified name, it stops accepting new work.
+     * The queued work is waited for on another thread, as it may be waiting for the main thread itself.
+     *
+     * @param moduleName {@link String} containing the module's name.
+     */
+    public void closeBulkhead(String moduleName) {
+        ModuleBulkhead bulkhead = bulkheads.remove(moduleName);
+        if (bulkhead == null) {
+            return;
+        }
+        bulkhead.shutdown();
+        closedBulkheads.add(bulkhead);
+        long shutdownTimeout = ((Number) coreConfig.get(CoreConfiguration.DATABASE_ASYNC_SHUTDOWN_TIMEOUT)).longValue();
+        Thread waiter = new Thread(() -> awaitBulkhead(bulkhead, shutdownTimeout), "DHCore-DB-Shutdown-" + moduleName);
+        waiter.setDaemon(true);
+        waiter.start();
+    }
+    
+    private void awaitBulkhead(ModuleBulkhead bulkhead, long timeoutMillis) {
+        if (!bulkhead.awaitTermination(timeoutMillis)) {
+            LOGGER.log(Level.WARN, "[Database] Not all queued database tasks of module " + bulkhead.getModuleName() + " finished before the shutdown timeout.");
+        }
+        closedBulkheads.remove(bulkhead);
+    }
+    
+    public Collection<ModuleBulkhead> getBulkheads() {
+        return Collections.unmodifiableCollection(bulkheads.values());
+    }
+    
+    boolean hasConnection() {
+        return db.hasConnection();
+    }
+    
+    private Map<String, int[]> parseBulkheadOverrides() {
+        Map<String, int[]> overrides = new HashMap<>();
+        for (Object override : (List<?>) coreConfig.get(CoreConfiguration.DATABASE_BULKHEADS_OVERRIDES)) {
+            String[] parts = String.valueOf(override).split(":");
+            try {
+                if (parts.length != 3) {
+                    throw new NumberFormatException();
+                }
+                overrides.put(parts[0].trim().toLowerCase(), new int[]{Integer.parseInt(parts[1].trim()), Integer.parseInt(parts[2].trim())});
+            } catch (NumberFormatException e) {
+                LOGGER.log(Level.WARN, "[Database] Ignoring invalid bulkhead override " + override + ", expected ModuleName:connections:queue_size.");
+            }
+        }
+        return overrides;
+    }
+    
+    /**
+     * Gets an {@link Executor} which runs tasks on the server's main thread.
+     * Use it to get results of {@link #submit(Function)} back to the main thread,
+     * e.g. {@code submit(...).thenAcceptAsync(result -> ..., getMainThreadExecutor())}.
+     *
+     * @return {@link Executor} for the main thread.
+     */
+    public Executor getMainThreadExecutor() {
+        return mainThreadExecutor;
+    }
+    
+    /**
+     * Marks the specified model as dirty, it will be written with the next batch of buffered writes.
+     *
+     * @param model {@link Model} to be written.
+     * @see WriteBehindBuffer#markDirty(Model)
+     */
+    public void markDirty(Model model) {
+        writeBehindBuffer.markDirty(model);
+    }
+    
+    public WriteBehindBuffer getWriteBehindBuffer() {
+        return writeBehindBuffer;
+    }
+    
+    /**
+     * Gets the router for read replicas.
+     *
+     * @return {@link ReplicaRouter}, null if no replicas are configured.
+     */
+    @Nullable
+    public ReplicaRouter getReplicaRouter() {
+        return replicaRouter;
+    }
+    
+    /**
+     * Gets the statement instrumentation, which holds the per statement and module statistics.
+     *
+     * @return {@link QueryInstrumentation} of all connections handed out by this handler.
+     */
+    public QueryInstrumentation getQueryInstrumentation() {
+        return queryInstrumentation;
+    }
+    
+    /**
+     * Gets the opt-in cache for query results, which is invalidated by writes through this handler's connections.
+     *
+     * @return {@link QueryCache} of this handler.
+     */
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+    
+    public DatabaseType getDatabaseType() {
+        return databaseType;
+    }
+    
+    public PlayerCache getPlayerCache() {
+        return playerCache;
+    }
+    
+    /**
+     * Gets the bulk loader for {@link com.dreamhorizon.core.objects.Player} rows.
+     *
+     * @return {@link PlayerLoader} which fills the {@link PlayerCache}.
+     */
+    public PlayerLoader getPlayerLoader() {
+        return playerLoader;
+    }
+    
+    /**
+     * Gets the database worker pool, which exposes queue depth, latency and rejection metrics.
+     *
+     * @return {@link DatabaseExecutor} used by {@link #submit(Function)} and {@link #run(Consumer)}.
+     */
+    public DatabaseExecutor getExecutor() {
+        return executor;
     }
     
     private void generateSchema(Connection connection) {
+        File checksumFile = new File(databaseFolder, "schema.checksum");
+        String checksum = computeSchemaChecksum();
+        if (checksum != null && checksumFile.isFile() && !((Boolean) coreConfig.get(CoreConfiguration.DATABASE_SCHEMA_FORCE_CHECK))) {
+            try {
+                if (checksum.equals(new String(Files.readAllBytes(checksumFile.toPath()), StandardCharsets.UTF_8).trim())) {
+                    LOGGER.log(Level.INFO, "[Database] The database changelogs are unchanged, skipping the schema update.");
+                    return;
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARN, "[Database] The schema checksum couldn't be read, running the schema update.");
+                LOGGER.log(Level.WARN, e);
+            }
+        }
         try {
             Database database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection));
             Liquibase liquibase = new Liquibase(
@@ -187,15 +898,85 @@ public class DatabaseHandler {
                 }
                 // module schemas need to be loaded into the main database changelog.
                 if (module.getSchemaResourcesPath() != null && !module.getSchemaResourcesPath().isEmpty()) {
-                    liquibase.getDatabaseChangeLog().include(module.getSchemaResourcesPath(), false, new ClassLoaderResourceAccessor(), new ContextExpression(), true);
+                    liquibase.getDatabaseChangeLog().include(module.getSchemaResourcesPath(), false,
+                        new ClassLoaderResourceAccessor(module.getClass().getClassLoader()), new ContextExpression(), true);
                 }
             }
             
             liquibase.update(new Contexts(), new LabelExpression());
+            // Only remember the checksum once the update went through.
+            if (checksum != null) {
+                Files.write(checksumFile.toPath(), checksum.getBytes(StandardCharsets.UTF_8));
+            }
         } catch (LiquibaseException e) {
             LOGGER.log(Level.ERROR, "An unexpected error occured while generating the database schema.");
             LOGGER.log(Level.ERROR, e);
             e.printStackTrace();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARN, "[Database] The schema checksum couldn't be saved, the next startup will run the schema update again.");
+            LOGGER.log(Level.WARN, e);
+        }
+    }
+    
+    /**
+     * Computes a checksum of everything the schema update depends on: the target database,
+     * the table prefix parameters, the master changelog and every module's changelog.
+     * Changelogs included by module changelogs are not part of it, force a check after changing those.
+     *
+     * @return {@link String} containing the hex encoded checksum, null if it couldn't be computed.
+     */
+    @Nullable
+    private String computeSchemaChecksum() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            updateDigest(digest, jdbcURL);
+            updateDigest(digest, dbTablePrefix);
+            if (!updateDigest(digest, getClass().getClassLoader(), "db/database-master.xml")) {
+                return null;
+            }
+            // Sort the modules, so the checksum doesn't depend on their load order.
+            List<Module> modules = new ArrayList<>(ModuleHandler.getInstance().getModules());
+            modules.sort(Comparator.comparing(module -> module.getClass().getName()));
+            for (Module module : modules) {
+                updateDigest(digest, module.getClass().getName());
+                if (module.getSchemaProperties() != null) {
+                    for (String schemaProperty : module.getSchemaProperties()) {
+                        updateDigest(digest, schemaProperty);
+                    }
+                }
+                if (module.getSchemaResourcesPath() != null && !module.getSchemaResourcesPath().isEmpty()) {
+                    updateDigest(digest, module.getSchemaResourcesPath());
+                    if (!updateDigest(digest, module.getClass().getClassLoader(), module.getSchemaResourcesPath())) {
+                        return null;
+                    }
+                }
+            }
+            return String.format("%064x", new BigInteger(1, digest.digest()));
+        } catch (NoSuchAlgorithmException | IOException e) {
+            LOGGER.log(Level.WARN, "[Database] The schema checksum couldn't be computed, running the schema update.");
+            LOGGER.log(Level.WARN, e);
+            return null;
+        }
+    }
+    
+    private static void updateDigest(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        // Separate the values, so that e.g. "ab" + "c" and "a" + "bc" differ.
+        digest.update((byte) 0);
+    }
+    
+    private static boolean updateDigest(MessageDigest digest, ClassLoader classLoader, String resource) throws IOException {
+        try (InputStream inputStream = classLoader.getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                return false;
+            }
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            digest.update((byte) 0);
+            return true;
         }
     }
     
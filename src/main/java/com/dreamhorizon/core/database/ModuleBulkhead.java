@@ -0,0 +1,230 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.database;
+
+import com.dreamhorizon.core.database.implementation.DatabaseExecutor;
+import com.dreamhorizon.core.modulation.implementation.ModuleContext;
+import org.javalite.activejdbc.DB;
+import org.javalite.activejdbc.DBException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Database access of a single module, limited to a share of the connection pool and its own worker queue.
+ * A module which exhausts its share waits for its own connections, instead of starving the other modules.
+ * All bulkheads together can't use the connections reserved for the core.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public class ModuleBulkhead {
+    private final DatabaseHandler databaseHandler;
+    private final String moduleName;
+    private final int maximumConnections;
+    private final long acquireTimeoutMillis;
+    private final Semaphore connections;
+    // Shared by all bulkheads, it leaves the core's reserved connections out.
+    private final Semaphore moduleConnections;
+    private final DatabaseExecutor executor;
+    private final LongAdder acquireTimeouts = new LongAdder();
+    
+    ModuleBulkhead(DatabaseHandler databaseHandler, String moduleName, int maximumConnections, int queueSize, long acquireTimeoutMillis,
+                   Semaphore moduleConnections) {
+        this.databaseHandler = databaseHandler;
+        this.moduleConnections = moduleConnections;
+        this.moduleName = moduleName;
+        this.maximumConnections = Math.max(1, maximumConnections);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.connections = new Semaphore(this.maximumConnections, true);
+        this.executor = new DatabaseExecutor("DHCore-DB-" + moduleName, this.maximumConnections, Math.max(1, queueSize));
+    }
+    
+    /**
+     * Runs the specified work with a pooled connection attached to the current thread,
+     * waiting for one of the module's connections to become free first.
+     *
+     * @param work {@link Function} which receives the {@link DB} the connection is attached to.
+     * @param <T>  type of the work's result.
+     * @return the result of the work.
+     * @throws DBException if none of the module's connections became free in time.
+     * @see DatabaseHandler#callWithConnection(Function)
+     */
+    public <T> T callWithConnection(Function<DB, T> work) {
+        return withPermit(() -> databaseHandler.connect(work));
+    }
+    
+    /**
+     * Runs the specified work with a pooled connection attached to the current thread,
+     * waiting for one of the module's connections to become free first.
+     *
+     * @param work {@link Consumer} which receives the {@link DB} the connection is attached to.
+     * @see #callWithConnection(Function)
+     */
+    public void runWithConnection(Consumer<DB> work) {
+        callWithConnection(session -> {
+            work.accept(session);
+            return null;
+        });
+    }
+    
+    /**
+     * Runs the specified read-only work with a replica connection attached to the current thread,
+     * waiting for one of the module's connections to become free first.
+     *
+     * @param work {@link Function} which receives the {@link DB} the connection is attached to, it must not write.
+     * @param <T>  type of the work's result.
+     * @return the result of the work.
+     * @see DatabaseHandler#callReadOnly(Function)
+     */
+    public <T> T callReadOnly(Function<DB, T> work) {
+        return withPermit(() -> databaseHandler.connectReadOnly(work));
+    }
+    
+    /**
+     * Runs the specified work asynchronously on the module's own worker queue.
+     *
+     * @param work {@link Function} which receives the {@link DB} the connection is attached to.
+     * @param <T>  type of the work's result.
+     * @return {@link CompletableFuture} completed with the work's result, or exceptionally if it failed or was rejected.
+     */
+    public <T> CompletableFuture<T> submit(Function<DB, T> work) {
+        return executor.submit(() -> callWithConnection(work));
+    }
+    
+    /**
+     * Runs the specified work asynchronously on the module's own worker queue.
+     *
+     * @param work {@link Consumer} which receives the {@link DB} the connection is attached to.
+     * @return {@link CompletableFuture} completed when the work is done, or exceptionally if it failed or was rejected.
+     */
+    public CompletableFuture<Void> run(Consumer<DB> work) {
+        return executor.submit(() -> {
+            runWithConnection(work);
+            return null;
+        });
+    }
+    
+    /**
+     * Runs the specified read-only work asynchronously on the module's own worker queue.
+     *
+     * @param work {@link Function} which receives the {@link DB} the connection is attached to, it must not write.
+     * @param <T>  type of the work's result.
+     * @return {@link CompletableFuture} completed with the work's result, or exceptionally if it failed or was rejected.
+     */
+    public <T> CompletableFuture<T> submitReadOnly(Function<DB, T> work) {
+        return executor.submit(() -> callReadOnly(work));
+    }
+    
+    private <T> T withPermit(Supplier<T> work) {
+        if (databaseHandler.hasConnection()) {
+            // Nested work reuses the connection, which already counts towards the budget.
+            return work.get();
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMillis);
+        acquire(connections, deadline, "one of its " + maximumConnections + " connections");
+        try {
+            acquire(moduleConnections, deadline, "a connection which isn't reserved for the core");
+        } catch (DBException e) {
+            connections.release();
+            throw e;
+        }
+        String previousModule = ModuleContext.enter(moduleName);
+        try {
+            return work.get();
+        } finally {
+            ModuleContext.exit(previousModule);
+            moduleConnections.release();
+            connections.release();
+        }
+    }
+    
+    private void acquire(Semaphore semaphore, long deadline, String description) {
+        try {
+            if (!semaphore.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                acquireTimeouts.increment();
+                throw new DBException("Module " + moduleName + " didn't get " + description + " within " + acquireTimeoutMillis + "ms.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DBException("Interrupted while waiting for a connection of module " + moduleName + ".");
+        }
+    }
+    
+    /**
+     * Stops accepting new work, the queued work still runs.
+     * This doesn't block, use {@link #awaitTermination(long)} to wait for the work.
+     */
+    void shutdown() {
+        executor.shutdown();
+    }
+    
+    /**
+     * Waits for the queued work of a shut down bulkhead to finish.
+     *
+     * @param timeoutMillis maximum time to wait in milliseconds.
+     * @return true if all work finished in time, false otherwise.
+     */
+    boolean awaitTermination(long timeoutMillis) {
+        return executor.awaitTermination(timeoutMillis);
+    }
+    
+    public String getModuleName() {
+        return moduleName;
+    }
+    
+    public int getMaximumConnections() {
+        return maximumConnections;
+    }
+    
+    public int getConnectionsInUse() {
+        return maximumConnections - connections.availablePermits();
+    }
+    
+    public int getWaitingThreads() {
+        return connections.getQueueLength();
+    }
+    
+    public long getAcquireTimeouts() {
+        return acquireTimeouts.sum();
+    }
+    
+    /**
+     * Gets how much of the module's connection budget is in use.
+     *
+     * @return fraction between 0 and 1.
+     */
+    public double getSaturation() {
+        return (double) getConnectionsInUse() / maximumConnections;
+    }
+    
+    /**
+     * Gets the module's worker queue, which exposes queue depth, latency and rejection metrics.
+     *
+     * @return {@link DatabaseExecutor} of this module.
+     */
+    public DatabaseExecutor getExecutor() {
+        return executor;
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.database;
+
+import com.dreamhorizon.core.objects.Player;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory cache of {@link Player} rows keyed by {@link UUID}.
+ * Online players are kept until they quit, afterwards they are kept for a limited time and amount.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public class PlayerCache {
+    private final DatabaseHandler databaseHandler;
+    private final int maximumOfflineSize;
+    private final long expireAfterQuitMillis;
+    private final Map<UUID, Player> onlinePlayers = new ConcurrentHashMap<>();
+    private final LinkedHashMap<UUID, OfflineEntry> offlinePlayers;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    
+    PlayerCache(DatabaseHandler databaseHandler, int maximumOfflineSize, long expireAfterQuitMillis) {
+        this.databaseHandler = databaseHandler;
+        this.maximumOfflineSize = maximumOfflineSize;
+        this.expireAfterQuitMillis = expireAfterQuitMillis;
+        this.offlinePlayers = new LinkedHashMap<UUID, OfflineEntry>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, OfflineEntry> eldest) {
+                if (size() > PlayerCache.this.maximumOfflineSize || eldest.getValue().isExpired()) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    /**
+     * Loads the player with the specified {@link UUID} into the cache as an online player.
+     * The row is created if it doesn't exist yet. This blocks, it should only be called asynchronously.
+     *
+     * @param uuid {@link UUID} of the player.
+     * @return the loaded {@link Player}.
+     */
+    public Player load(UUID uuid) {
+        Player player = getIfCached(uuid);
+        if (player == null) {
+            misses.increment();
+            player = databaseHandler.callWithConnection(db -> {
+                Player found = Player.findByUUID(uuid);
+                if (found == null) {
+                    found = new Player();
+                    found.setUUID(uuid);
+                    found.insert();
+                }
+                return found;
+            });
+        } else {
+            hits.increment();
+        }
+        synchronized (offlinePlayers) {
+            offlinePlayers.remove(uuid);
+        }
+        onlinePlayers.put(uuid, player);
+        return player;
+    }
+    
+    /**
+     * Marks the player with the specified {@link UUID} as offline, writes the row back and
+     * keeps it cached until it expires or the offline cache is full.
+     *
+     * @param uuid {@link UUID} of the player.
+     */
+    public void unload(UUID uuid) {
+        Player player = onlinePlayers.remove(uuid);
+        if (player == null) {
+            return;
+        }
+        databaseHandler.markDirty(player);
+        if (maximumOfflineSize <= 0 || expireAfterQuitMillis <= 0) {
+            evictions.increment();
+            return;
+        }
+        synchronized (offlinePlayers) {
+            offlinePlayers.put(uuid, new OfflineEntry(player, System.currentTimeMillis() + expireAfterQuitMillis));
+        }
+    }
+    
+    /**
+     * Gets the player with the specified {@link UUID} from the cache.
+     * Does not count towards hit/miss statistics and never queries the database.
+     *
+     * @param uuid {@link UUID} of the player.
+     * @return the cached {@link Player}, null if not cached.
+     */
+    @Nullable
+    public Player getIfCached(UUID uuid) {
+        Player player = onlinePlayers.get(uuid);
+        if (player != null) {
+            return player;
+        }
+        synchronized (offlinePlayers) {
+            OfflineEntry entry = offlinePlayers.get(uuid);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.isExpired()) {
+                offlinePlayers.remove(uuid);
+                evictions.increment();
+                return null;
+            }
+            return entry.player;
+        }
+    }
+    
+    /**
+     * Gets the player with the specified {@link UUID}, querying the database on a cache miss.
+     * On a miss this blocks, use {@link #getAsync(UUID)} on the main thread.
+     *
+     * @param uuid {@link UUID} of the player.
+     * @return the {@link Player}, null if no row exists.
+     */
+    @Nullable
+    public Player get(UUID uuid) {
+        Player player = getIfCached(uuid);
+        if (player != null) {
+            hits.increment();
+            return player;
+        }
+        misses.increment();
+        player = databaseHandler.callWithConnection(db -> Player.findByUUID(uuid));
+        if (player != null) {
+            offer(player);
+        }
+        return player;
+    }
+    
+    /**
+     * Gets the player with the specified {@link UUID}, querying the database asynchronously on a cache miss.
+     *
+     * @param uuid {@link UUID} of the player.
+     * @return {@link CompletableFuture} completed with the {@link Player}, or null if no row exists.
+     */
+    public CompletableFuture<Player> getAsync(UUID uuid) {
+        Player player = getIfCached(uuid);
+        if (player != null) {
+            hits.increment();
+            return CompletableFuture.completedFuture(player);
+        }
+        return databaseHandler.submit(db -> get(uuid));
+    }
+    
+    /**
+     * Puts an already loaded player into the cache, unless it is cached already.
+     * Players who are not online are put into the offline cache.
+     *
+     * @param player {@link Player} to cache.
+     */
+    public void offer(Player player) {
+        UUID uuid = player.getUUID();
+        if (onlinePlayers.containsKey(uuid) || maximumOfflineSize <= 0 || expireAfterQuitMillis <= 0) {
+            return;
+        }
+        synchronized (offlinePlayers) {
+            offlinePlayers.putIfAbsent(uuid, new OfflineEntry(player, System.currentTimeMillis() + expireAfterQuitMillis));
+        }
+    }
+    
+    /**
+     * Removes the player with the specified {@link UUID} from the cache without writing it back.
+     *
+     * @param uuid {@link UUID} of the player.
+     */
+    public void invalidate(UUID uuid) {
+        onlinePlayers.remove(uuid);
+        synchronized (offlinePlayers) {
+            offlinePlayers.remove(uuid);
+        }
+    }
+    
+    public int getOnlineSize() {
+        return onlinePlayers.size();
+    }
+    
+    public int getOfflineSize() {
+        synchronized (offlinePlayers) {
+            return offlinePlayers.size();
+        }
+    }
+    
+    public long getHits() {
+        return hits.sum();
+    }
+    
+    public long getMisses() {
+        return misses.sum();
+    }
+    
+    public long getEvictions() {
+        return evictions.sum();
+    }
+    
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+    
+    private static class OfflineEntry {
+        private final Player player;
+        private final long expiresAt;
+        
+        private OfflineEntry(Player player, long expiresAt) {
+            this.player = player;
+            this.expiresAt = expiresAt;
+        }
+        
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
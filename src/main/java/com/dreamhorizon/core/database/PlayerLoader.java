@@ -0,0 +1,119 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.database;
+
+import com.dreamhorizon.core.objects.Player;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loads many {@link Player} rows at once.
+ * The requested {@link UUID}s are split into chunks, each chunk is a single {@code IN (...)} query
+ * and the chunks run in parallel on the database worker pool.
+ * Rows are read from the primary database after buffered writes were flushed, as loaded players are
+ * cached and written back later, a stale row from a replica would overwrite newer data.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public class PlayerLoader {
+    private final DatabaseHandler databaseHandler;
+    private final PlayerCache playerCache;
+    private final int chunkSize;
+    
+    PlayerLoader(DatabaseHandler databaseHandler, PlayerCache playerCache, int chunkSize) {
+        this.databaseHandler = databaseHandler;
+        this.playerCache = playerCache;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+    
+    /**
+     * Loads the players with the specified {@link UUID}s asynchronously.
+     * Players which are cached are not queried, loaded players are offered to the {@link PlayerCache}.
+     *
+     * @param uuids {@link UUID}s of the players.
+     * @return {@link CompletableFuture} completed with the found players by {@link UUID},
+     * UUIDs without a row are missing from the map.
+     */
+    public CompletableFuture<Map<UUID, Player>> loadAsync(Collection<UUID> uuids) {
+        Map<UUID, Player> result = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (UUID uuid : new LinkedHashSet<>(uuids)) {
+            Player player = playerCache.getIfCached(uuid);
+            if (player == null) {
+                missing.add(uuid);
+            } else {
+                result.put(uuid, player);
+            }
+        }
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(result);
+        }
+        
+        WriteBehindBuffer writeBehindBuffer = databaseHandler.getWriteBehindBuffer();
+        CompletableFuture<Void> flushed = writeBehindBuffer.getPendingRows() == 0
+            ? CompletableFuture.completedFuture(null)
+            : databaseHandler.run(db -> writeBehindBuffer.flush());
+        List<CompletableFuture<Map<UUID, Player>>> chunks = new ArrayList<>();
+        return flushed.thenCompose(flushResult -> {
+            for (int from = 0; from < missing.size(); from += chunkSize) {
+                List<UUID> chunk = missing.subList(from, Math.min(from + chunkSize, missing.size()));
+                chunks.add(databaseHandler.submit(db -> Player.findByUUIDs(chunk)));
+            }
+            return CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0]));
+        }).thenApply(ignored -> {
+            for (CompletableFuture<Map<UUID, Player>> chunk : chunks) {
+                for (Player player : chunk.join().values()) {
+                    // If the flush failed, the row is older than its buffered write and must not be cached.
+                    if (!writeBehindBuffer.isPending(Player.class, player.getId())) {
+                        playerCache.offer(player);
+                    }
+                    // Prefer the cached instance, it may have been loaded while the query was running.
+                    Player cached = playerCache.getIfCached(player.getUUID());
+                    result.put(player.getUUID(), cached == null ? player : cached);
+                }
+            }
+            return result;
+        });
+    }
+    
+    /**
+     * Loads the players with the specified {@link UUID}s.
+     * This blocks until all chunks are loaded, it should only be called asynchronously
+     * and never from within work running on the database worker pool.
+     *
+     * @param uuids {@link UUID}s of the players.
+     * @return the found players by {@link UUID}, UUIDs without a row are missing from the map.
+     * @see #loadAsync(Collection)
+     */
+    public Map<UUID, Player> load(Collection<UUID> uuids) {
+        return loadAsync(uuids).join();
+    }
+    
+    public int getChunkSize() {
+        return chunkSize;
+    }
+}
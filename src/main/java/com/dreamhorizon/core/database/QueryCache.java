@@ -0,0 +1,270 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.database;
+
+import com.dreamhorizon.core.database.implementation.SqlTables;
+import org.javalite.activejdbc.DB;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Opt-in cache of query results, keyed by the SQL and its parameters and tagged with the tables it reads.
+ * Only queries which exclusively read prefixed tables are cached, every write to one of those tables through
+ * a connection of the {@link DatabaseHandler} invalidates the entries tagged with it.
+ * Writes only bump the table's version, entries are checked against the versions when they're read
+ * and stale entries are removed then or evicted as least recently used.
+ * Writes from outside of this server are not seen, entries additionally expire after a configurable time.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public class QueryCache {
+    private final DatabaseHandler databaseHandler;
+    private final String tablePrefix;
+    private final int maximumSize;
+    private final long expireAfterMillis;
+    private final LinkedHashMap<CacheKey, CacheEntry> entries;
+    private final Map<String, AtomicLong> tableVersions = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    
+    QueryCache(DatabaseHandler databaseHandler, String tablePrefix, int maximumSize, long expireAfterMillis) {
+        this.databaseHandler = databaseHandler;
+        this.tablePrefix = tablePrefix.toLowerCase();
+        this.maximumSize = maximumSize;
+        this.expireAfterMillis = expireAfterMillis;
+        this.entries = new LinkedHashMap<CacheKey, CacheEntry>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+                if (size() > QueryCache.this.maximumSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    /**
+     * Runs the specified query on the primary, or returns its cached rows.
+     * The read tables are taken from the query's {@code FROM} and {@code JOIN} clauses,
+     * queries which read other tables than prefixed ones are not cached.
+     *
+     * @param sql    {@link String} containing the query.
+     * @param params parameters of the query.
+     * @return unmodifiable {@link List} of unmodifiable rows, which map the column names to their values.
+     */
+    public List<Map<String, Object>> findAll(String sql, Object... params) {
+        return get(SqlTables.findReadTables(sql), sql, params, db -> {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (Map<String, Object> row : db.findAll(sql, params)) {
+                rows.add(Collections.unmodifiableMap(row));
+            }
+            return Collections.unmodifiableList(rows);
+        });
+    }
+    
+    /**
+     * Loads a value with a pooled connection of the primary, or returns the cached value.
+     * The value is shared between all callers, it must not be modified.
+     *
+     * @param tables {@link Collection} of tables the loader reads.
+     * @param sql    {@link String} containing the query, as part of the cache key.
+     * @param params parameters of the query, as part of the cache key.
+     * @param loader {@link Function} which loads the value on a miss.
+     * @param <T>    type of the value.
+     * @return the cached or loaded value.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Collection<String> tables, String sql, Object[] params, Function<DB, T> loader) {
+        Set<String> normalizedTables = tables.stream().map(SqlTables::normalize).collect(Collectors.toSet());
+        if (maximumSize <= 0 || normalizedTables.isEmpty() || !normalizedTables.stream().allMatch(table -> table.startsWith(tablePrefix))) {
+            bypasses.increment();
+            return databaseHandler.callWithConnection(loader);
+        }
+        CacheKey key = new CacheKey(sql, params);
+        synchronized (entries) {
+            CacheEntry entry = entries.get(key);
+            if (entry != null) {
+                if (!entry.isExpired() && isCurrent(entry.versions)) {
+                    hits.increment();
+                    return (T) entry.value;
+                }
+                entries.remove(key);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        Map<String, Long> versions = new HashMap<>();
+        for (String table : normalizedTables) {
+            versions.put(table, getVersion(table).get());
+        }
+        T value = databaseHandler.callWithConnection(loader);
+        synchronized (entries) {
+            // A write during the load may have been missed by the loaded value, it must not be cached then.
+            if (!isCurrent(versions)) {
+                return value;
+            }
+            entries.put(key, new CacheEntry(value, versions, expireAfterMillis <= 0 ? Long.MAX_VALUE : System.currentTimeMillis() + expireAfterMillis));
+        }
+        return value;
+    }
+    
+    private boolean isCurrent(Map<String, Long> versions) {
+        for (Map.Entry<String, Long> version : versions.entrySet()) {
+            if (getVersion(version.getKey()).get() != version.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Invalidates all entries which read the specified table.
+     * This doesn't lock or scan the cache, the entries are removed when they're read next or evicted.
+     *
+     * @param table {@link String} containing the table's name.
+     */
+    public void invalidate(String table) {
+        String normalizedTable = SqlTables.normalize(table);
+        if (!normalizedTable.startsWith(tablePrefix)) {
+            return;
+        }
+        getVersion(normalizedTable).incrementAndGet();
+        invalidations.increment();
+    }
+    
+    /**
+     * Removes all entries.
+     */
+    public void invalidateAll() {
+        tableVersions.values().forEach(AtomicLong::incrementAndGet);
+        invalidations.increment();
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+    
+    private AtomicLong getVersion(String table) {
+        return tableVersions.computeIfAbsent(table, name -> new AtomicLong());
+    }
+    
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+    
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+    
+    public long getHits() {
+        return hits.sum();
+    }
+    
+    public long getMisses() {
+        return misses.sum();
+    }
+    
+    public long getBypasses() {
+        return bypasses.sum();
+    }
+    
+    public long getEvictions() {
+        return evictions.sum();
+    }
+    
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+    
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+    
+    private static class CacheKey {
+        private final String sql;
+        private final List<Object> params;
+        private final int hashCode;
+        
+        private CacheKey(String sql, Object[] params) {
+            this.sql = sql;
+            List<Object> keyParams = new ArrayList<>(params.length);
+            for (Object param : params) {
+                // Arrays, e.g. binary UUIDs, are compared by content.
+                keyParams.add(param instanceof byte[] ? ByteBuffer.wrap(((byte[]) param).clone()) : param);
+            }
+            this.params = keyParams;
+            this.hashCode = 31 * sql.hashCode() + keyParams.hashCode();
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return sql.equals(other.sql) && params.equals(other.params);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+    
+    private static class CacheEntry {
+        private final Object value;
+        // Versions of the read tables before the value was loaded.
+        private final Map<String, Long> versions;
+        private final long expiresAt;
+        
+        private CacheEntry(Object value, Map<String, Long> versions, long expiresAt) {
+            this.value = value;
+            this.versions = versions;
+            this.expiresAt = expiresAt;
+        }
+        
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
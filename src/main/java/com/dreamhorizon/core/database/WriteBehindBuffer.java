@@ -0,0 +1,348 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.database;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.javalite.activejdbc.MetaModel;
+import org.javalite.activejdbc.Model;
+import org.javalite.activejdbc.Registry;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffers model writes and flushes them as batched upserts.
+ * Writes to the same primary key are coalesced, only the latest state of a row is written.
+ * If a batch fails its rows are retried one by one, so that a single bad row can't hold back the others.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public class WriteBehindBuffer {
+    private static final Logger LOGGER = LogManager.getLogger("com.dreamhorizon.core");
+    private final DatabaseHandler databaseHandler;
+    private final int flushThreshold;
+    private final int maxPendingRows;
+    private final int maxRowFailures;
+    private final Object pendingLock = new Object();
+    private final Object flushLock = new Object();
+    private final AtomicBoolean flushQueued = new AtomicBoolean(false);
+    // Set while writes are rejected because the buffer is full, so that it's only logged once.
+    private final AtomicBoolean rejecting = new AtomicBoolean(false);
+    // table name -> primary key -> latest row
+    private Map<String, Map<Object, PendingRow>> pendingRows = new LinkedHashMap<>();
+    private int pendingCount = 0;
+    private final LongAdder markedWrites = new LongAdder();
+    private final LongAdder coalescedWrites = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder flushedBatches = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private final LongAdder droppedRows = new LongAdder();
+    private final LongAdder rejectedWrites = new LongAdder();
+    
+    WriteBehindBuffer(DatabaseHandler databaseHandler, int flushThreshold, int maxPendingRows, int maxRowFailures) {
+        this.databaseHandler = databaseHandler;
+        this.flushThreshold = flushThreshold;
+        this.maxPendingRows = maxPendingRows;
+        this.maxRowFailures = Math.max(1, maxRowFailures);
+    }
+    
+    /**
+     * Marks the specified model as dirty, its current attributes will be written on the next flush.
+     * The model must have its primary key set.
+     * If the buffer is full, writes to rows which aren't buffered yet are rejected and logged,
+     * the buffer is never flushed on the calling thread.
+     *
+     * @param model {@link Model} to be written.
+     */
+    public void markDirty(Model model) {
+        MetaModel metaModel = Registry.INSTANCE.getMetaModel(model.getClass());
+        Object id = model.getId();
+        if (id == null) {
+            throw new IllegalArgumentException("Model " + model.getClass().getName() + " has no primary key set.");
+        }
+        Map<String, Object> attributes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        model.toMap().forEach((column, value) -> {
+            // Skip included children and parents, only columns are written.
+            if (!(value instanceof Map) && !(value instanceof List)) {
+                attributes.put(column, value);
+            }
+        });
+        PendingRow row = new PendingRow(metaModel.getTableName(), metaModel.getIdName(), attributes);
+        boolean flush;
+        boolean rejected = false;
+        synchronized (pendingLock) {
+            Map<Object, PendingRow> tableRows = pendingRows.get(row.table);
+            Object key = toKey(id);
+            if (tableRows != null && tableRows.containsKey(key)) {
+                tableRows.put(key, row);
+                coalescedWrites.increment();
+            } else if (maxPendingRows > 0 && pendingCount >= maxPendingRows) {
+                rejected = true;
+            } else {
+                pendingRows.computeIfAbsent(row.table, table -> new LinkedHashMap<>()).put(key, row);
+                pendingCount++;
+            }
+            flush = pendingCount >= flushThreshold;
+        }
+        if (rejected) {
+            // The database can't keep up, the buffer mustn't grow without bounds and the caller may be the main thread.
+            rejectedWrites.increment();
+            if (rejecting.compareAndSet(false, true)) {
+                LOGGER.log(Level.WARN, "[Database] The write-behind buffer is full with " + maxPendingRows
+                    + " rows, new writes are rejected until it was flushed.");
+            }
+        } else {
+            markedWrites.increment();
+        }
+        if (flush && flushQueued.compareAndSet(false, true)) {
+            databaseHandler.getExecutor().submit(() -> {
+                flush();
+                return null;
+            }).whenComplete((ignored, throwable) -> flushQueued.set(false));
+        }
+    }
+    
+    /**
+     * Writes all pending rows on the current thread, one transaction with one batch per table and column set.
+     * The writes use the core's connections, even if a module triggered the flush.
+     * If the batch fails, the rows are written one by one and only the failed rows are queued again,
+     * unless a newer write for them was marked meanwhile. Rows which failed too often are dropped.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Map<String, Map<Object, PendingRow>> toFlush;
+            synchronized (pendingLock) {
+                if (pendingCount == 0) {
+                    return;
+                }
+                toFlush = pendingRows;
+                pendingRows = new LinkedHashMap<>();
+                pendingCount = 0;
+            }
+            try {
+                databaseHandler.connect(db -> {
+                    try {
+                        writeRows(db.connection(), toFlush);
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return null;
+                });
+                if (rejecting.compareAndSet(true, false)) {
+                    LOGGER.log(Level.INFO, "[Database] The write-behind buffer was flushed, new writes are accepted again.");
+                }
+            } catch (RuntimeException e) {
+                failedFlushes.increment();
+                LOGGER.log(Level.WARN, "[Database] A batch of buffered writes failed, its rows will be retried one by one.");
+                LOGGER.log(Level.WARN, e);
+                retryRows(toFlush);
+            }
+        }
+    }
+    
+    /**
+     * Writes the specified rows one by one, each in its own transaction.
+     * Failed rows are queued again until they failed the configured amount of times, then they are dropped.
+     * If the connection fails, the remaining rows are queued again without counting it against them.
+     *
+     * @param rows rows of a failed batch.
+     */
+    private void retryRows(Map<String, Map<Object, PendingRow>> rows) {
+        Map<String, Map<Object, PendingRow>> remaining = new LinkedHashMap<>();
+        rows.forEach((table, tableRows) -> remaining.put(table, new LinkedHashMap<>(tableRows)));
+        Map<String, Map<Object, PendingRow>> failed = new LinkedHashMap<>();
+        try {
+            databaseHandler.connect(db -> {
+                for (Map.Entry<String, Map<Object, PendingRow>> tableRows : remaining.entrySet()) {
+                    Iterator<Map.Entry<Object, PendingRow>> iterator = tableRows.getValue().entrySet().iterator();
+                    while (iterator.hasNext()) {
+                        Map.Entry<Object, PendingRow> entry = iterator.next();
+                        PendingRow row = entry.getValue();
+                        try {
+                            writeRows(db.connection(), Collections.singletonMap(tableRows.getKey(), Collections.singletonMap(entry.getKey(), row)));
+                        } catch (SQLException | RuntimeException e) {
+                            if (isConnectionFailure(e)) {
+                                throw new IllegalStateException(e);
+                            }
+                            if (++row.failures >= maxRowFailures) {
+                                droppedRows.increment();
+                                LOGGER.log(Level.ERROR, "[Database] A buffered write to " + row.table + " failed " + row.failures
+                                    + " times and was dropped: " + row.idName + " = " + row.attributes.get(row.idName));
+                                LOGGER.log(Level.ERROR, e);
+                            } else {
+                                failed.computeIfAbsent(tableRows.getKey(), table -> new LinkedHashMap<>()).put(entry.getKey(), row);
+                            }
+                        }
+                        iterator.remove();
+                    }
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.ERROR, "[Database] The connection failed while retrying buffered writes, they will be retried.");
+            LOGGER.log(Level.ERROR, e);
+        }
+        requeue(remaining);
+        requeue(failed);
+    }
+    
+    private static boolean isConnectionFailure(Exception e) {
+        // SQL state class 08 are connection exceptions.
+        return e instanceof SQLRecoverableException
+            || (e instanceof SQLException && ((SQLException) e).getSQLState() != null && ((SQLException) e).getSQLState().startsWith("08"));
+    }
+    
+    private void writeRows(Connection connection, Map<String, Map<Object, PendingRow>> rows) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            int rowCount = 0;
+            for (Map<Object, PendingRow> tableRows : rows.values()) {
+                // Rows of the same table can have different columns set, each column set is its own batch.
+                Map<List<String>, List<PendingRow>> batches = new LinkedHashMap<>();
+                for (PendingRow row : tableRows.values()) {
+                    batches.computeIfAbsent(new ArrayList<>(row.attributes.keySet()), columns -> new ArrayList<>()).add(row);
+                }
+                for (Map.Entry<List<String>, List<PendingRow>> batch : batches.entrySet()) {
+                    PendingRow first = batch.getValue().get(0);
+                    try (PreparedStatement statement = connection.prepareStatement(databaseHandler.getDatabaseType().buildUpsert(first.table, first.idName, batch.getKey()))) {
+                        for (PendingRow row : batch.getValue()) {
+                            int index = 1;
+                            for (Object value : row.attributes.values()) {
+                                statement.setObject(index++, value);
+                            }
+                            statement.addBatch();
+                        }
+                        statement.executeBatch();
+                    }
+                    rowCount += batch.getValue().size();
+                    flushedBatches.increment();
+                }
+            }
+            connection.commit();
+            flushedRows.add(rowCount);
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+    
+    private void requeue(Map<String, Map<Object, PendingRow>> rows) {
+        synchronized (pendingLock) {
+            rows.forEach((table, tableRows) -> {
+                Map<Object, PendingRow> pendingTableRows = pendingRows.computeIfAbsent(table, t -> new LinkedHashMap<>());
+                tableRows.forEach((id, row) -> {
+                    if (pendingTableRows.putIfAbsent(id, row) == null) {
+                        pendingCount++;
+                    }
+                });
+            });
+        }
+    }
+    
+    /**
+     * Checks to see if a write of the specified row is waiting to be flushed.
+     *
+     * @param modelClass {@link Class} of the row's model.
+     * @param id         primary key of the row.
+     * @return true if the row has a buffered write, false otherwise.
+     */
+    public boolean isPending(Class<? extends Model> modelClass, Object id) {
+        String table = Registry.INSTANCE.getMetaModel(modelClass).getTableName();
+        synchronized (pendingLock) {
+            Map<Object, PendingRow> tableRows = pendingRows.get(table);
+            return tableRows != null && tableRows.containsKey(toKey(id));
+        }
+    }
+    
+    private static Object toKey(Object id) {
+        // Arrays (e.g. binary keys) don't implement equals, wrap them so equal keys are coalesced.
+        if (id instanceof byte[]) {
+            byte[] bytes = (byte[]) id;
+            return ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length));
+        }
+        return id;
+    }
+    
+    public int getPendingRows() {
+        synchronized (pendingLock) {
+            return pendingCount;
+        }
+    }
+    
+    public long getMarkedWrites() {
+        return markedWrites.sum();
+    }
+    
+    public long getCoalescedWrites() {
+        return coalescedWrites.sum();
+    }
+    
+    public long getFlushedRows() {
+        return flushedRows.sum();
+    }
+    
+    public long getFlushedBatches() {
+        return flushedBatches.sum();
+    }
+    
+    public long getFailedFlushes() {
+        return failedFlushes.sum();
+    }
+    
+    public long getDroppedRows() {
+        return droppedRows.sum();
+    }
+    
+    public long getRejectedWrites() {
+        return rejectedWrites.sum();
+    }
+    
+    private static class PendingRow {
+        private final String table;
+        private final String idName;
+        private final Map<String, Object> attributes;
+        // Failed single row writes, only touched while the flush lock is held.
+        private int failures = 0;
+        
+        private PendingRow(String table, String idName, Map<String, Object> attributes) {
+            this.table = table;
+            this.idName = idName;
+            this.attributes = attributes;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.database.implementation;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded worker pool for database tasks, which keeps track of its queue and task latency.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public class DatabaseExecutor {
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder submittedTasks = new LongAdder();
+    private final LongAdder completedTasks = new LongAdder();
+    private final LongAdder failedTasks = new LongAdder();
+    private final LongAdder rejectedTasks = new LongAdder();
+    private final LongAdder totalQueueNanos = new LongAdder();
+    private final LongAdder totalExecutionNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0L);
+    
+    public DatabaseExecutor(String name, int threads, int queueSize) {
+        this.name = name;
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = new ThreadPoolExecutor(
+            threads, threads,
+            60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueSize),
+            threadFactory,
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+    
+    /**
+     * Submits a task to the worker pool.
+     * If the queue is full, the task is rejected and the returned future completes exceptionally.
+     *
+     * @param task {@link Supplier} to run on a worker thread.
+     * @param <T>  type of the task's result.
+     * @return {@link CompletableFuture} completed with the task's result.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long submitTime = System.nanoTime();
+        // Counted before the task can run, so that completed tasks never outnumber submitted ones.
+        submittedTasks.increment();
+        try {
+            executor.execute(() -> {
+                long startTime = System.nanoTime();
+                totalQueueNanos.add(startTime - submitTime);
+                try {
+                    future.complete(task.get());
+                    completedTasks.increment();
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                    failedTasks.increment();
+                } finally {
+                    long endTime = System.nanoTime();
+                    totalExecutionNanos.add(endTime - startTime);
+                    maxLatencyNanos.accumulate(endTime - submitTime);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            submittedTasks.decrement();
+            rejectedTasks.increment();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+    
+    /**
+     * Stops accepting new tasks and waits for the queued ones to finish.
+     *
+     * @param timeoutMillis maximum time to wait in milliseconds.
+     * @return true if all tasks finished in time, false otherwise.
+     */
+    public boolean shutdown(long timeoutMillis) {
+        shutdown();
+        return awaitTermination(timeoutMillis);
+    }
+    
+    /**
+     * Stops accepting new tasks, the queued ones still run.
+     * This doesn't block, use {@link #awaitTermination(long)} to wait for the tasks.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+    
+    /**
+     * Waits for the queued tasks of a shut down executor to finish.
+     *
+     * @param timeoutMillis maximum time to wait in milliseconds.
+     * @return true if all tasks finished in time, false otherwise.
+     */
+    public boolean awaitTermination(long timeoutMillis) {
+        try {
+            return executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+    
+    public int getQueueCapacity() {
+        return executor.getQueue().size() + executor.getQueue().remainingCapacity();
+    }
+    
+    public int getActiveThreads() {
+        return executor.getActiveCount();
+    }
+    
+    public int getMaximumThreads() {
+        return executor.getMaximumPoolSize();
+    }
+    
+    public long getSubmittedTasks() {
+        return submittedTasks.sum();
+    }
+    
+    public long getCompletedTasks() {
+        return completedTasks.sum();
+    }
+    
+    public long getFailedTasks() {
+        return failedTasks.sum();
+    }
+    
+    public long getRejectedTasks() {
+        return rejectedTasks.sum();
+    }
+    
+    /**
+     * Gets the average time tasks spent waiting in the queue.
+     *
+     * @return average queue time in milliseconds.
+     */
+    public double getAverageQueueMillis() {
+        long finished = completedTasks.sum() + failedTasks.sum();
+        return finished == 0 ? 0 : totalQueueNanos.sum() / (finished * 1_000_000.0);
+    }
+    
+    /**
+     * Gets the average time tasks spent running on a worker.
+     *
+     * @return average execution time in milliseconds.
+     */
+    public double getAverageExecutionMillis() {
+        long finished = completedTasks.sum() + failedTasks.sum();
+        return finished == 0 ? 0 : totalExecutionNanos.sum() / (finished * 1_000_000.0);
+    }
+    
+    /**
+     * Gets the longest time between submitting a task and it finishing.
+     *
+     * @return maximum latency in milliseconds.
+     */
+    public double getMaxLatencyMillis() {
+        return maxLatencyNanos.get() / 1_000_000.0;
+    }
+}
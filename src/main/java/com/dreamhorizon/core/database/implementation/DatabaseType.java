@@ -0,0 +1,218 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.database.implementation;
+
+import com.zaxxer.hikari.HikariConfig;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Supported database engines, with their drivers, JDBC URLs and dialect specific SQL.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public enum DatabaseType {
+    MYSQL("mysql", "com.mysql.jdbc.Driver", false) {
+        @Override
+        public String buildURL(String hostname, String port, String schema, File databaseFolder) {
+            return "jdbc:mysql://" + hostname + ":" + port + "/" + schema
+                + "?verifyServerCertificate=false&useSSL=false&useUnicode=true&characterEncoding=utf-8";
+        }
+        
+        @Override
+        public int getStreamingFetchSize(int fetchSize) {
+            // Connector/J only streams forward-only, read-only results row by row with this fetch size.
+            // Server side cursors would need useCursorFetch, which makes every other statement a server side prepared statement.
+            return Integer.MIN_VALUE;
+        }
+        
+        @Override
+        public long getReplicationLag(Connection connection) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SHOW SLAVE STATUS")) {
+                if (!resultSet.next()) {
+                    return -1;
+                }
+                long lag = resultSet.getLong("Seconds_Behind_Master");
+                // NULL means that replication isn't running.
+                return resultSet.wasNull() ? Long.MAX_VALUE : lag;
+            } catch (SQLException e) {
+                // Without the REPLICATION CLIENT privilege the lag can't be known.
+                return -1;
+            }
+        }
+    },
+    H2("h2", "org.h2.Driver", true) {
+        @Override
+        public String buildURL(String hostname, String port, String schema, File databaseFolder) {
+            // MySQL mode, so that module changelogs and queries written for MySQL keep working.
+            return "jdbc:h2:file:" + new File(databaseFolder, schema).getAbsolutePath() + ";MODE=MySQL";
+        }
+    },
+    SQLITE("sqlite", "org.sqlite.JDBC", true) {
+        @Override
+        public String buildURL(String hostname, String port, String schema, File databaseFolder) {
+            return "jdbc:sqlite:" + new File(databaseFolder, schema + ".db").getAbsolutePath();
+        }
+        
+        @Override
+        public void configure(HikariConfig config) {
+            // SQLite only has one writer, let the others wait for it instead of failing right away.
+            config.addDataSourceProperty("journal_mode", "WAL");
+            config.addDataSourceProperty("busy_timeout", String.valueOf(config.getConnectionTimeout()));
+        }
+        
+        @Override
+        public String buildUpsert(String table, String idName, List<String> columns) {
+            StringBuilder insert = new StringBuilder("INSERT INTO ").append(table).append(" (");
+            StringBuilder values = new StringBuilder(") VALUES (");
+            StringBuilder update = new StringBuilder(") ON CONFLICT(").append(idName).append(") DO ");
+            boolean hasUpdate = false;
+            for (int i = 0; i < columns.size(); i++) {
+                String column = columns.get(i);
+                if (i > 0) {
+                    insert.append(", ");
+                    values.append(", ");
+                }
+                insert.append(column);
+                values.append('?');
+                if (!column.equalsIgnoreCase(idName)) {
+                    update.append(hasUpdate ? ", " : "UPDATE SET ").append(column).append(" = excluded.").append(column);
+                    hasUpdate = true;
+                }
+            }
+            if (!hasUpdate) {
+                update.append("NOTHING");
+            }
+            return insert.append(values).append(update).toString();
+        }
+    };
+    
+    private final String configName;
+    private final String driver;
+    private final boolean embedded;
+    
+    DatabaseType(String configName, String driver, boolean embedded) {
+        this.configName = configName;
+        this.driver = driver;
+        this.embedded = embedded;
+    }
+    
+    /**
+     * Builds the JDBC URL for this database type.
+     * Embedded databases ignore the hostname and port and store their files in the database folder.
+     *
+     * @param hostname       {@link String} containing the database's hostname.
+     * @param port           {@link String} containing the database's port.
+     * @param schema         {@link String} containing the schema, or the file name for embedded databases.
+     * @param databaseFolder {@link File} in which embedded databases are stored.
+     * @return {@link String} containing the JDBC URL.
+     */
+    public abstract String buildURL(String hostname, String port, String schema, File databaseFolder);
+    
+    /**
+     * Applies type specific settings to the connection pool's configuration.
+     *
+     * @param config {@link HikariConfig} of the pool.
+     */
+    public void configure(HikariConfig config) {
+    }
+    
+    /**
+     * Gets how far the database behind the specified connection lags behind its primary.
+     *
+     * @param connection {@link Connection} to the replica.
+     * @return lag in seconds, -1 if unknown.
+     */
+    public long getReplicationLag(Connection connection) {
+        return -1;
+    }
+    
+    /**
+     * Gets the fetch size for statements which stream their result instead of reading it at once.
+     *
+     * @param fetchSize configured amount of rows fetched at once.
+     * @return fetch size to be set on the forward-only, read-only statement.
+     */
+    public int getStreamingFetchSize(int fetchSize) {
+        return fetchSize;
+    }
+    
+    /**
+     * Builds an insert statement which updates the row if its primary key already exists.
+     *
+     * @param table   {@link String} containing the table's name.
+     * @param idName  {@link String} containing the primary key's column.
+     * @param columns {@link List} of columns, one parameter is bound per column.
+     * @return {@link String} containing the upsert statement.
+     */
+    public String buildUpsert(String table, String idName, List<String> columns) {
+        // MySQL syntax, which H2 understands in MySQL mode.
+        StringBuilder insert = new StringBuilder("INSERT INTO ").append(table).append(" (");
+        StringBuilder values = new StringBuilder(") VALUES (");
+        StringBuilder update = new StringBuilder(") ON DUPLICATE KEY UPDATE ");
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i);
+            if (i > 0) {
+                insert.append(", ");
+                values.append(", ");
+                update.append(", ");
+            }
+            insert.append(column);
+            values.append('?');
+            update.append(column).append(" = VALUES(").append(column).append(')');
+        }
+        return insert.append(values).append(update).toString();
+    }
+    
+    public String getConfigName() {
+        return configName;
+    }
+    
+    public String getDriver() {
+        return driver;
+    }
+    
+    public boolean isEmbedded() {
+        return embedded;
+    }
+    
+    /**
+     * Gets the database type with the specified name.
+     *
+     * @param configName {@link String} containing the name, as used in the configuration.
+     * @return {@link DatabaseType} with the specified name, null if there is none.
+     */
+    @Nullable
+    public static DatabaseType fromConfigName(String configName) {
+        for (DatabaseType type : values()) {
+            if (type.configName.equalsIgnoreCase(configName)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
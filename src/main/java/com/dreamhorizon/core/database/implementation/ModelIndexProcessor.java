@@ -0,0 +1,91 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.database.implementation;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Annotation processor which writes all ActiveJDBC models annotated with {@code @Table} to a model index.
+ * It is registered as a service, so modules that compile against the core get their index generated as well.
+ * The DatabaseHandler reads these indexes instead of scanning the jars at runtime.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+@SupportedAnnotationTypes("org.javalite.activejdbc.annotations.Table")
+public class ModelIndexProcessor extends AbstractProcessor {
+    public static final String INDEX_PATH = "META-INF/dreamhorizon/models.index";
+    private final Set<String> modelClassNames = new TreeSet<>();
+    
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+    
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement modelElement = processingEnv.getElementUtils().getTypeElement("org.javalite.activejdbc.Model");
+        if (modelElement != null) {
+            TypeMirror modelType = modelElement.asType();
+            for (TypeElement annotation : annotations) {
+                for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                    if (element.getKind() != ElementKind.CLASS || element.getModifiers().contains(Modifier.ABSTRACT)) {
+                        continue;
+                    }
+                    if (processingEnv.getTypeUtils().isSubtype(element.asType(), modelType)) {
+                        modelClassNames.add(processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString());
+                    }
+                }
+            }
+        }
+        if (roundEnv.processingOver() && !modelClassNames.isEmpty()) {
+            writeIndex();
+        }
+        return false;
+    }
+    
+    private void writeIndex() {
+        try {
+            FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_PATH);
+            try (Writer writer = index.openWriter()) {
+                for (String modelClassName : modelClassNames) {
+                    writer.write(modelClassName);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write the model index: " + e.getMessage());
+        }
+    }
+}
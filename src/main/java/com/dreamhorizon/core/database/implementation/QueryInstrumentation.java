@@ -0,0 +1,262 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.database.implementation;
+
+import com.dreamhorizon.core.modulation.ModuleHandler;
+import com.dreamhorizon.core.modulation.implementation.ModuleContext;
+import com.dreamhorizon.core.modulation.implementation.ModuleEntry;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Wraps connections, so that every executed statement is timed and attributed to the module executing it.
+ * Statements are attributed by the thread's {@link ModuleContext}. Without one, the stack is walked for a sample
+ * of the statements and the other executions of the same SQL are attributed to the module found last.
+ * Statements slower than the threshold are written to the slow query log
+ * and the tables written by statements are reported to the write listeners.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public class QueryInstrumentation {
+    private static final Logger SLOW_QUERY_LOGGER = LogManager.getLogger("com.dreamhorizon.core.database.slowquery");
+    private static final int MAX_SAMPLED_STATEMENTS = 10000;
+    private final QueryStatistics statistics = new QueryStatistics();
+    private final List<Consumer<String>> writeListeners = new CopyOnWriteArrayList<>();
+    private final long slowQueryThresholdNanos;
+    private final int attributionSampleRate;
+    // SQL -> module found by the last stack walk for it.
+    private final Map<String, String> sampledModules = new ConcurrentHashMap<>();
+    
+    /**
+     * @param slowQueryThresholdMillis milliseconds after which statements are logged as slow, 0 disables the log.
+     * @param attributionSampleRate    one in this many statements without a module context walks the stack.
+     */
+    public QueryInstrumentation(long slowQueryThresholdMillis, int attributionSampleRate) {
+        this.slowQueryThresholdNanos = slowQueryThresholdMillis * 1_000_000L;
+        this.attributionSampleRate = Math.max(1, attributionSampleRate);
+    }
+    
+    /**
+     * Wraps the specified {@link DataSource}, so that all of its connections are instrumented.
+     *
+     * @param dataSource {@link DataSource} to be wrapped.
+     * @return instrumented {@link DataSource}.
+     */
+    public DataSource wrap(DataSource dataSource) {
+        return proxy(DataSource.class, (proxy, method, args) -> {
+            Object result = invoke(dataSource, method, args);
+            return result instanceof Connection ? wrap((Connection) result) : result;
+        });
+    }
+    
+    /**
+     * Wraps the specified {@link Connection}, so that all of its statements are instrumented.
+     *
+     * @param connection {@link Connection} to be wrapped.
+     * @return instrumented {@link Connection}.
+     */
+    public Connection wrap(Connection connection) {
+        // Tables written in the current transaction, they are reported again once it ends.
+        Set<String> writtenTables = new HashSet<>();
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result;
+            try {
+                result = invoke(connection, method, args);
+            } finally {
+                switch (method.getName()) {
+                    case "commit":
+                    case "rollback":
+                    case "close":
+                        writtenTables.forEach(QueryInstrumentation.this::notifyWrite);
+                        writtenTables.clear();
+                        break;
+                    default:
+                        break;
+                }
+            }
+            switch (method.getName()) {
+                case "createStatement":
+                    return proxy(method.getReturnType(), new StatementHandler(result, null, writtenTables));
+                case "prepareStatement":
+                case "prepareCall":
+                    return proxy(method.getReturnType(), new StatementHandler(result, (String) args[0], writtenTables));
+                default:
+                    return result;
+            }
+        });
+    }
+    
+    /**
+     * Adds a listener, which receives the name of every table written through an instrumented connection.
+     * It's called when the statement was executed and again when the transaction ended.
+     *
+     * @param listener {@link Consumer} which receives the normalized table name.
+     */
+    public void addWriteListener(Consumer<String> listener) {
+        writeListeners.add(listener);
+    }
+    
+    private void notifyWrite(String table) {
+        for (Consumer<String> listener : writeListeners) {
+            listener.accept(table);
+        }
+    }
+    
+    public QueryStatistics getStatistics() {
+        return statistics;
+    }
+    
+    private String findCallingModule(String sql) {
+        String moduleName = ModuleContext.getCurrentModule();
+        if (moduleName != null) {
+            return moduleName;
+        }
+        ModuleHandler moduleHandler = ModuleHandler.getInstance();
+        if (moduleHandler.getRegistry().size() == 0) {
+            return "core";
+        }
+        String sampledModule = sampledModules.get(sql);
+        if (sampledModule != null && ThreadLocalRandom.current().nextInt(attributionSampleRate) != 0) {
+            return sampledModule;
+        }
+        ModuleEntry moduleEntry = moduleHandler.findCallingModule(Thread.currentThread().getStackTrace());
+        moduleName = moduleEntry == null ? "core" : moduleEntry.getName();
+        // Statements with inlined values never repeat, don't let them grow the map forever.
+        if (sampledModules.size() >= MAX_SAMPLED_STATEMENTS) {
+            sampledModules.clear();
+        }
+        sampledModules.put(sql, moduleName);
+        return moduleName;
+    }
+    
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(QueryInstrumentation.class.getClassLoader(), new Class[]{type}, handler);
+    }
+    
+    private class StatementHandler implements InvocationHandler {
+        private final Object statement;
+        private final String preparedSql;
+        private final Set<String> writtenTables;
+        private final Set<String> statementTables = new HashSet<>();
+        private QueryStatistics.StatementStatistics lastStatistics;
+        
+        private StatementHandler(Object statement, String preparedSql, Set<String> writtenTables) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+            this.writtenTables = writtenTables;
+            if (preparedSql != null) {
+                trackWrite(preparedSql);
+            }
+        }
+        
+        private void trackWrite(String sql) {
+            String table = SqlTables.findWrittenTable(sql);
+            if (table != null) {
+                statementTables.add(table);
+            }
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("getResultSet")) {
+                Object result = QueryInstrumentation.invoke(statement, method, args);
+                return result == null || lastStatistics == null ? result : wrapResultSet((ResultSet) result, lastStatistics);
+            }
+            if (name.equals("addBatch") && args != null && args.length > 0 && args[0] instanceof String) {
+                trackWrite((String) args[0]);
+            }
+            if (!name.startsWith("execute")) {
+                return QueryInstrumentation.invoke(statement, method, args);
+            }
+            String sql = preparedSql;
+            if (sql == null) {
+                sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : "<batch>";
+                trackWrite(sql);
+            }
+            QueryStatistics.StatementStatistics statementStatistics = statistics.get(findCallingModule(sql), sql);
+            lastStatistics = statementStatistics;
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = QueryInstrumentation.invoke(statement, method, args);
+            } finally {
+                for (String table : statementTables) {
+                    writtenTables.add(table);
+                    notifyWrite(table);
+                }
+                if (preparedSql == null) {
+                    statementTables.clear();
+                }
+                long nanos = System.nanoTime() - start;
+                statementStatistics.record(nanos);
+                if (slowQueryThresholdNanos > 0 && nanos >= slowQueryThresholdNanos) {
+                    SLOW_QUERY_LOGGER.log(Level.WARN, String.format("%.2fms [%s] %s", nanos / 1_000_000.0, statementStatistics.getModule(), sql));
+                }
+            }
+            if (result instanceof ResultSet) {
+                return wrapResultSet((ResultSet) result, statementStatistics);
+            } else if (result instanceof Integer || result instanceof Long) {
+                statementStatistics.addRows(Math.max(0, ((Number) result).longValue()));
+            } else if (result instanceof int[]) {
+                for (int updateCount : (int[]) result) {
+                    statementStatistics.addRows(Math.max(0, updateCount));
+                }
+            }
+            return result;
+        }
+        
+        private ResultSet wrapResultSet(ResultSet resultSet, QueryStatistics.StatementStatistics statementStatistics) {
+            return proxy(ResultSet.class, (proxy, method, args) -> {
+                Object result = QueryInstrumentation.invoke(resultSet, method, args);
+                if (Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+                    statementStatistics.addRows(1);
+                }
+                return result;
+            });
+        }
+    }
+}
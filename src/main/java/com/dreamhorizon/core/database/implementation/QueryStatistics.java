@@ -0,0 +1,141 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.database.implementation;
+
+import com.dreamhorizon.core.util.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregated statistics of executed statements, per statement and calling module.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public class QueryStatistics {
+    // Statements that aren't parameterized would otherwise grow this without a bound.
+    private static final int MAXIMUM_STATEMENTS = 2000;
+    private static final String OTHER_STATEMENTS = "<other statements>";
+    private final Map<StatementKey, StatementStatistics> statistics = new ConcurrentHashMap<>();
+    
+    /**
+     * Gets the statistics of the specified statement executed by the specified module.
+     *
+     * @param module {@link String} containing the module's name, "core" if no module executed it.
+     * @param sql    {@link String} containing the statement.
+     * @return {@link StatementStatistics} to record the execution with.
+     */
+    public StatementStatistics get(String module, String sql) {
+        StatementKey key = new StatementKey(module, sql);
+        StatementStatistics statementStatistics = statistics.get(key);
+        if (statementStatistics != null) {
+            return statementStatistics;
+        }
+        if (statistics.size() >= MAXIMUM_STATEMENTS) {
+            key = new StatementKey(module, OTHER_STATEMENTS);
+        }
+        StatementKey finalKey = key;
+        return statistics.computeIfAbsent(key, k -> new StatementStatistics(finalKey.module, finalKey.sql));
+    }
+    
+    /**
+     * Gets the statements which took the most time in total.
+     *
+     * @param amount maximum amount of statements.
+     * @return {@link List} of {@link StatementStatistics} sorted by total time, descending.
+     */
+    public List<StatementStatistics> getTop(int amount) {
+        List<StatementStatistics> top = new ArrayList<>(statistics.values());
+        top.sort(Comparator.comparingLong((StatementStatistics statement) -> statement.getLatency().getTotalNanos()).reversed());
+        return top.size() > amount ? top.subList(0, amount) : top;
+    }
+    
+    public void reset() {
+        statistics.clear();
+    }
+    
+    public static class StatementStatistics {
+        private final String module;
+        private final String sql;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        
+        private StatementStatistics(String module, String sql) {
+            this.module = module;
+            this.sql = sql;
+        }
+        
+        public void record(long nanos) {
+            latency.record(nanos);
+        }
+        
+        public void addRows(long amount) {
+            rows.add(amount);
+        }
+        
+        public String getModule() {
+            return module;
+        }
+        
+        public String getSql() {
+            return sql;
+        }
+        
+        public long getRows() {
+            return rows.sum();
+        }
+        
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+    }
+    
+    private static class StatementKey {
+        private final String module;
+        private final String sql;
+        
+        private StatementKey(String module, String sql) {
+            this.module = module;
+            this.sql = sql;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof StatementKey)) {
+                return false;
+            }
+            StatementKey that = (StatementKey) o;
+            return module.equals(that.module) && sql.equals(that.sql);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(module, sql);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.database.implementation;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load balances read-only connections over the configured replicas.
+ * Replicas which fail or lag behind too far are skipped until they recover.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public class ReplicaRouter {
+    private static final Logger LOGGER = LogManager.getLogger("com.dreamhorizon.core");
+    private final DatabaseType databaseType;
+    private final List<Replica> replicas;
+    private final long maxLagSeconds;
+    private final long retryDelayMillis;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    
+    public ReplicaRouter(DatabaseType databaseType, List<Replica> replicas, long maxLagSeconds, long retryDelayMillis) {
+        this.databaseType = databaseType;
+        this.replicas = replicas;
+        this.maxLagSeconds = maxLagSeconds;
+        this.retryDelayMillis = retryDelayMillis;
+    }
+    
+    /**
+     * Gets the next available replica, round robin.
+     *
+     * @return {@link Replica} to read from, null if none are available.
+     */
+    @Nullable
+    public Replica nextReplica() {
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.isAvailable()) {
+                return replica;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Checks every replica's connectivity and replication lag.
+     * Failed replicas are only checked again once their retry delay is over.
+     */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            if (System.currentTimeMillis() < replica.failedUntil) {
+                continue;
+            }
+            try (Connection connection = replica.dataSource.getConnection()) {
+                long lag = databaseType.getReplicationLag(connection);
+                boolean lagging = lag > maxLagSeconds;
+                if (lagging && !replica.lagging) {
+                    LOGGER.log(Level.WARN, "[Database] Replica " + replica.name + " is " + lag + " seconds behind, reading from other replicas instead.");
+                } else if (!lagging && replica.lagging) {
+                    LOGGER.log(Level.INFO, "[Database] Replica " + replica.name + " caught up again.");
+                }
+                replica.lagSeconds = lag;
+                replica.lagging = lagging;
+            } catch (SQLException e) {
+                markFailed(replica, e);
+            }
+        }
+    }
+    
+    /**
+     * Stops routing reads to the specified replica until its retry delay is over.
+     *
+     * @param replica {@link Replica} that failed.
+     * @param cause   {@link Exception} it failed with.
+     */
+    public void markFailed(Replica replica, Exception cause) {
+        replica.failedUntil = System.currentTimeMillis() + retryDelayMillis;
+        LOGGER.log(Level.WARN, "[Database] Replica " + replica.name + " failed, reading from other replicas or the primary instead.");
+        LOGGER.log(Level.WARN, cause);
+    }
+    
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+    
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+    
+    public static class Replica {
+        private final String name;
+        private final HikariDataSource dataSource;
+        private volatile long failedUntil = 0;
+        private volatile boolean lagging = false;
+        private volatile long lagSeconds = -1;
+        
+        public Replica(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+        
+        public Connection getConnection() throws SQLException {
+            return dataSource.getConnection();
+        }
+        
+        public boolean isAvailable() {
+            return !lagging && System.currentTimeMillis() >= failedUntil;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        /**
+         * Gets the replication lag measured by the last check.
+         *
+         * @return lag in seconds, -1 if unknown.
+         */
+        public long getLagSeconds() {
+            return lagSeconds;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.database.implementation;
+
+import org.javalite.activejdbc.DBException;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * {@link Spliterator} which reads one row of a {@link ResultSet} at a time.
+ * Rows are handed out as maps from the lower case column label to the value.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public class ResultSetSpliterator extends Spliterators.AbstractSpliterator<Map<String, Object>> {
+    private final ResultSet resultSet;
+    private final String[] columns;
+    
+    public ResultSetSpliterator(ResultSet resultSet) throws SQLException {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.resultSet = resultSet;
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        this.columns = new String[metaData.getColumnCount()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = metaData.getColumnLabel(i + 1).toLowerCase();
+        }
+    }
+    
+    @Override
+    public boolean tryAdvance(Consumer<? super Map<String, Object>> action) {
+        try {
+            if (!resultSet.next()) {
+                return false;
+            }
+            Map<String, Object> row = new LinkedHashMap<>(columns.length * 2);
+            for (int i = 0; i < columns.length; i++) {
+                row.put(columns[i], resultSet.getObject(i + 1));
+            }
+            action.accept(row);
+            return true;
+        } catch (SQLException e) {
+            throw new DBException(e);
+        }
+    }
+}
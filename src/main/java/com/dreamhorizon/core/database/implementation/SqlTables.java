@@ -0,0 +1,85 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.database.implementation;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the tables a SQL statement reads or writes.
+ * This is a best effort, it recognizes plain {@code FROM} and {@code JOIN} clauses and single table writes.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public final class SqlTables {
+    private static final String TABLE = "([\\w`\".]+)";
+    private static final Pattern READ_PATTERN = Pattern.compile("\\b(?:FROM|JOIN)\\s+" + TABLE, Pattern.CASE_INSENSITIVE);
+    private static final Pattern WRITE_PATTERN = Pattern.compile(
+        "^\\s*(?:INSERT\\s+(?:OR\\s+\\w+\\s+|IGNORE\\s+)?INTO|REPLACE\\s+INTO|MERGE\\s+INTO|UPDATE(?:\\s+IGNORE)?"
+            + "|DELETE\\s+FROM|TRUNCATE(?:\\s+TABLE)?|ALTER\\s+TABLE|DROP\\s+TABLE(?:\\s+IF\\s+EXISTS)?)\\s+" + TABLE,
+        Pattern.CASE_INSENSITIVE
+    );
+    
+    private SqlTables() {
+    }
+    
+    /**
+     * Finds the tables the specified query reads from.
+     *
+     * @param sql {@link String} containing the query.
+     * @return {@link Set} of normalized table names, empty if none were recognized.
+     */
+    public static Set<String> findReadTables(String sql) {
+        Set<String> tables = new LinkedHashSet<>();
+        Matcher matcher = READ_PATTERN.matcher(sql);
+        while (matcher.find()) {
+            tables.add(normalize(matcher.group(1)));
+        }
+        return tables;
+    }
+    
+    /**
+     * Finds the table the specified statement writes to.
+     *
+     * @param sql {@link String} containing the statement.
+     * @return normalized table name, null if the statement isn't a recognized write.
+     */
+    @Nullable
+    public static String findWrittenTable(String sql) {
+        Matcher matcher = WRITE_PATTERN.matcher(sql);
+        return matcher.find() ? normalize(matcher.group(1)) : null;
+    }
+    
+    /**
+     * Normalizes a table name, by removing its schema and quotes and lower casing it.
+     *
+     * @param table {@link String} containing the table name as written in SQL.
+     * @return {@link String} containing the normalized table name.
+     */
+    public static String normalize(String table) {
+        String name = table.replace("`", "").replace("\"", "");
+        int schemaEnd = name.lastIndexOf('.');
+        return (schemaEnd == -1 ? name : name.substring(schemaEnd + 1)).toLowerCase();
+    }
+}
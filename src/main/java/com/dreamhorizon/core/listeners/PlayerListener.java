@@ -0,0 +1,65 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.listeners;
+
+import com.dreamhorizon.core.database.DatabaseHandler;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public class PlayerListener implements Listener {
+    private static final Logger LOGGER = LogManager.getLogger("com.dreamhorizon.core");
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPlayerPreLoginEvent(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+        // Already async, so the row can be loaded right here.
+        try {
+            DatabaseHandler.getInstance().getPlayerCache().load(event.getUniqueId());
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.ERROR, "[Database] An unexpected error occured while loading player " + event.getUniqueId() + ".");
+            LOGGER.log(Level.ERROR, e);
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerLoginEvent(PlayerLoginEvent event) {
+        // The login can still be denied after the pre-login, don't keep those players as online.
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            DatabaseHandler.getInstance().getPlayerCache().unload(event.getPlayer().getUniqueId());
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuitEvent(PlayerQuitEvent event) {
+        DatabaseHandler.getInstance().getPlayerCache().unload(event.getPlayer().getUniqueId());
+    }
+}
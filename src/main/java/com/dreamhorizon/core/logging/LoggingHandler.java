@@ -112,6 +112,34 @@ public class LoggingHandler {
                 .withBufferedIo(false)
                 .withBufferSize(0).build()
         );
+        // Slow queries
+        appenders.add(
+            FileAppender.newBuilder()
+                .withFileName("plugins" + File.separator + "DHCore" + File.separator + "logs" + File.separator + "SlowQueries.log")
+                .withLocking(false)
+                .withName("SlowQueries")
+                .withIgnoreExceptions(false)
+                .withBufferedIo(false)
+                .withBufferSize(0)
+                .withLayout(layout)
+                .withAdvertise(false)
+                .setConfiguration(config)
+                .build()
+        );
+        // Main thread stalls
+        appenders.add(
+            FileAppender.newBuilder()
+                .withFileName("plugins" + File.separator + "DHCore" + File.separator + "logs" + File.separator + "Watchdog.log")
+                .withLocking(false)
+                .withName("Watchdog")
+                .withIgnoreExceptions(false)
+                .withBufferedIo(false)
+                .withBufferSize(0)
+                .withLayout(layout)
+                .withAdvertise(false)
+                .setConfiguration(config)
+                .build()
+        );
         // Start appenders, give them the LoggerConfig and add their references to the referenceList
         for (Appender appender : appenders) {
             appender.start();
@@ -126,11 +154,17 @@ public class LoggingHandler {
         LoggerConfig generalConf = LoggerConfig.createLogger(false, Level.ALL, "DHCore", null, appenderReferences.get(2), null, config, null);
         generalConf.addAppender(appenders.get(2), Level.ALL, null);
         generalConf.addAppender(appenders.get(3), Level.ERROR, null);
+        LoggerConfig slowQueryConf = LoggerConfig.createLogger(false, Level.ALL, "SlowQueries", null, appenderReferences.get(4), null, config, null);
+        slowQueryConf.addAppender(appenders.get(4), Level.ALL, null);
+        LoggerConfig watchdogConf = LoggerConfig.createLogger(false, Level.ALL, "Watchdog", null, appenderReferences.get(5), null, config, null);
+        watchdogConf.addAppender(appenders.get(5), Level.ALL, null);
         
         // Add the correct packages to the LoggerConfigs, so that those packages are forwarded to the said logger.
         config.addLogger("org.javalite", activeJDBCConf);
         config.addLogger("liquibase", liquibaseConf);
         config.addLogger("com.dreamhorizon.core", generalConf);
+        config.addLogger("com.dreamhorizon.core.database.slowquery", slowQueryConf);
+        config.addLogger("com.dreamhorizon.core.watchdog", watchdogConf);
         ctx.updateLoggers();
     }
     
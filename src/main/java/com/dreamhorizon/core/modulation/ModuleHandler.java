@@ -18,36 +18,70 @@
 
 package com.dreamhorizon.core.modulation;
 
+import co.aikar.commands.BaseCommand;
 import com.dreamhorizon.core.DHCore;
 import com.dreamhorizon.core.commands.CommandHandler;
 import com.dreamhorizon.core.configuration.ConfigurationHandler;
+import com.dreamhorizon.core.configuration.enums.CoreConfiguration;
+import com.dreamhorizon.core.configuration.implementation.EnumConfiguration;
+import com.dreamhorizon.core.database.DatabaseHandler;
+import com.dreamhorizon.core.database.implementation.ModelIndexProcessor;
+import com.dreamhorizon.core.modulation.implementation.ListenerStatistics;
 import com.dreamhorizon.core.modulation.implementation.Module;
+import com.dreamhorizon.core.modulation.implementation.ModuleClassLoader;
+import com.dreamhorizon.core.modulation.implementation.ModuleContext;
 import com.dreamhorizon.core.modulation.implementation.ModuleEntry;
+import com.dreamhorizon.core.modulation.implementation.ModuleEventExecutor;
+import com.dreamhorizon.core.modulation.implementation.ModuleExecutor;
+import com.dreamhorizon.core.modulation.implementation.ModuleIndex;
 import com.dreamhorizon.core.modulation.implementation.ModuleInfo;
+import com.dreamhorizon.core.modulation.implementation.ModuleRegistry;
+import com.dreamhorizon.core.tasks.MainThreadWatchdog;
+import com.dreamhorizon.core.tasks.TickJobScheduler;
 import com.dreamhorizon.core.util.FileUtil;
 import io.github.classgraph.AnnotationInfo;
 import io.github.classgraph.AnnotationParameterValueList;
 import io.github.classgraph.ClassGraph;
 import io.github.classgraph.ClassInfo;
-import io.github.classgraph.ClassInfoList;
+import io.github.classgraph.Resource;
 import io.github.classgraph.ScanResult;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.bukkit.Bukkit;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
 import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.javalite.activejdbc.Model;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.stream.Collectors;
 
 /**
@@ -58,7 +92,22 @@ public class ModuleHandler {
     private static final Logger LOGGER = LogManager.getLogger("com.dreamhorizon.core");
     private static ModuleHandler instance;
     private final File moduleFolder = new File("plugins" + File.separator + "DHCore" + File.separator + "modules");
-    private final HashMap<String, ModuleEntry> moduleEntries = new HashMap<>();
+    private final Map<String, ModuleEntry> moduleEntries = new ConcurrentHashMap<>();
+    // Class names in the jars of the modules with their own ClassLoader, to the ClassLoader of their jar.
+    private final Map<String, ModuleClassLoader> moduleClasses = new ConcurrentHashMap<>();
+    private final ModuleIndex moduleIndex = ModuleIndex.load(new File(moduleFolder, "modules.index"));
+    // Lazy modules which are enabled, but wait for their first use.
+    private final Set<Module> armedModules = ConcurrentHashMap.newKeySet();
+    // Snapshot of the modules sorted by their dependencies, modules are enabled in this order and disabled in reverse.
+    private volatile ModuleRegistry registry = ModuleRegistry.EMPTY;
+    private final ListenerStatistics listenerStatistics = new ListenerStatistics();
+    private final Map<String, ModuleExecutor> asyncExecutors = new ConcurrentHashMap<>();
+    // Pool shared by the modules' executors when virtual threads aren't available or disabled.
+    private ForkJoinPool sharedAsyncPool;
+    private final Object asyncPoolLock = new Object();
+    // Executors which were shut down while the plugin is disabled, they are waited for at the end.
+    private final List<ModuleExecutor> closedExecutors = new ArrayList<>();
+    private boolean disablingModules = false;
     
     private ModuleHandler() {
         // Get the list of module jars.
@@ -74,42 +123,214 @@ public class ModuleHandler {
             LOGGER.log(Level.INFO, "[Module] No modules were found.");
             return;
         }
-        // Import ever moduleJar.
-        for (File moduleJar : moduleJars) {
-            // Get ClassLoader
-            URLClassLoader classLoader = (URLClassLoader) DHCore.class.getClassLoader();
-            // Load module with plugin's classloader.
-            try {
-                URL url = moduleJar.toURI().toURL();
-                // Spigot may have already loaded the JAR, just to make sure we have this check.
-                if (Arrays.asList(classLoader.getURLs()).contains(url)) {
+        moduleIndex.retain(Arrays.stream(moduleJars).map(File::getName).collect(Collectors.toList()));
+        List<ModuleCandidate> candidates = discoverModules(Arrays.asList(moduleJars));
+        moduleIndex.save();
+        
+        // Class loaders are created one after another, as jars with models are added to the plugin's ClassLoader.
+        Map<ModuleCandidate, ClassLoader> classLoaders = new LinkedHashMap<>();
+        for (ModuleCandidate candidate : candidates) {
+            ClassLoader classLoader = createClassLoader(candidate);
+            if (classLoader != null) {
+                classLoaders.put(candidate, classLoader);
+            }
+        }
+        // Instantiate and load the modules in parallel, their static initializers and onLoad may be expensive.
+        ExecutorService loaderPool = Executors.newFixedThreadPool(
+            Math.max(1, Math.min(classLoaders.size(), Runtime.getRuntime().availableProcessors())),
+            runnable -> new Thread(runnable, "DHCore-ModuleLoader")
+        );
+        try {
+            List<CompletableFuture<ModuleEntry>> instantiations = new ArrayList<>();
+            classLoaders.forEach((candidate, classLoader) ->
+                instantiations.add(CompletableFuture.supplyAsync(() -> candidate.instantiate(classLoader), loaderPool)));
+            for (CompletableFuture<ModuleEntry> instantiation : instantiations) {
+                ModuleEntry moduleEntry = instantiation.join();
+                if (moduleEntry == null) {
                     continue;
                 }
-                // Add JAR to ClassLoader
-                Method method = classLoader.getClass().getSuperclass().getDeclaredMethod("addURL", URL.class);
-                method.setAccessible(true);
-                method.invoke(classLoader, url);
-                
-                // Use ClassGraph to get the newly loaded packages and search for the module's main class.
-                ScanResult scanResult = new ClassGraph()
-                    .enableAnnotationInfo()
-                    .disableRuntimeInvisibleAnnotations()
-                    .disableDirScanning()
-                    .disableModuleScanning()
-                    .disableNestedJarScanning()
-                    .whitelistJars(moduleJar.getName())
-                    .scan();
-                // Get module class, which is annotated with @ModuleInfo
-                ClassInfoList classInfoListAnnotations = scanResult.getClassesWithAnnotation(ModuleInfo.class.getCanonicalName());
-                if (classInfoListAnnotations == null || classInfoListAnnotations.isEmpty()) {
+                if (moduleEntries.containsKey(moduleEntry.getName())) {
+                    LOGGER.log(Level.ERROR, "[Module] More than one module is named " + moduleEntry.getName() + ", only the first one was loaded.");
+                    continue;
+                }
+                moduleEntries.put(moduleEntry.getName(), moduleEntry);
+            }
+            List<ModuleEntry> sorted = sortModules();
+            moduleEntries.keySet().retainAll(sorted.stream().map(ModuleEntry::getName).collect(Collectors.toSet()));
+            // Modules may look up their own entry in onLoad, e.g. for their bulkhead.
+            publish(sorted);
+            loadModules(sorted, loaderPool);
+        } finally {
+            loaderPool.shutdown();
+        }
+    }
+    
+    /**
+     * Sorts the loaded modules topologically by their dependencies, modules without an order between them are sorted by name.
+     * Modules with missing dependencies or circular dependencies are left out.
+     *
+     * @return {@link List} of {@link ModuleEntry}s, every module comes after its dependencies.
+     */
+    private List<ModuleEntry> sortModules() {
+        Map<String, ModuleEntry> remaining = new TreeMap<>(moduleEntries);
+        boolean removed;
+        do {
+            removed = false;
+            Iterator<ModuleEntry> iterator = remaining.values().iterator();
+            while (iterator.hasNext()) {
+                ModuleEntry moduleEntry = iterator.next();
+                for (String dependency : moduleEntry.getDepends()) {
+                    if (!remaining.containsKey(dependency)) {
+                        LOGGER.log(Level.ERROR, "[Module] " + moduleEntry.getName() + " requires module " + dependency + ", which isn't loaded.");
+                        iterator.remove();
+                        removed = true;
+                        break;
+                    }
+                }
+            }
+        } while (removed);
+        
+        Map<String, Integer> dependencyCounts = new HashMap<>();
+        Map<String, List<String>> dependents = new HashMap<>();
+        for (ModuleEntry moduleEntry : remaining.values()) {
+            dependencyCounts.put(moduleEntry.getName(), 0);
+        }
+        for (ModuleEntry moduleEntry : remaining.values()) {
+            for (String dependency : getPresentDependencies(moduleEntry, remaining)) {
+                dependencyCounts.merge(moduleEntry.getName(), 1, Integer::sum);
+                dependents.computeIfAbsent(dependency, name -> new ArrayList<>()).add(moduleEntry.getName());
+            }
+        }
+        PriorityQueue<String> ready = new PriorityQueue<>();
+        dependencyCounts.forEach((name, count) -> {
+            if (count == 0) {
+                ready.add(name);
+            }
+        });
+        List<ModuleEntry> sorted = new ArrayList<>();
+        while (!ready.isEmpty()) {
+            String name = ready.poll();
+            sorted.add(remaining.get(name));
+            for (String dependent : dependents.getOrDefault(name, Collections.emptyList())) {
+                if (dependencyCounts.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (sorted.size() < remaining.size()) {
+            sorted.forEach(moduleEntry -> remaining.remove(moduleEntry.getName()));
+            LOGGER.log(Level.ERROR, "[Module] Circular dependencies, these modules won't be loaded: " + String.join(", ", remaining.keySet()));
+        }
+        return sorted;
+    }
+    
+    private static Set<String> getPresentDependencies(ModuleEntry moduleEntry, Map<String, ModuleEntry> modules) {
+        Set<String> dependencies = new HashSet<>(moduleEntry.getDepends());
+        moduleEntry.getSoftDepends().stream().filter(modules::containsKey).forEach(dependencies::add);
+        dependencies.remove(moduleEntry.getName());
+        return dependencies;
+    }
+    
+    /**
+     * Runs the onLoad of the specified modules on the worker pool, every module's onLoad starts once its dependencies' finished,
+     * so independent modules load concurrently. The modules are then registered one after another on the calling thread.
+     * A module whose onLoad failed is removed, together with the modules which require it.
+     *
+     * @param sorted     {@link List} of {@link ModuleEntry}s, sorted by their dependencies.
+     * @param loaderPool {@link ExecutorService} to run onLoad on.
+     */
+    private void loadModules(List<ModuleEntry> sorted, ExecutorService loaderPool) {
+        Map<String, CompletableFuture<Void>> loads = new HashMap<>();
+        for (ModuleEntry moduleEntry : sorted) {
+            List<CompletableFuture<?>> dependencies = new ArrayList<>();
+            for (String dependency : getPresentDependencies(moduleEntry, moduleEntries)) {
+                CompletableFuture<Void> dependencyLoad = loads.get(dependency);
+                if (moduleEntry.getDepends().contains(dependency)) {
+                    dependencies.add(dependencyLoad);
+                } else {
+                    // A failed optional dependency doesn't keep the module from loading.
+                    dependencies.add(dependencyLoad.handle((ignored, throwable) -> null));
+                }
+            }
+            loads.put(moduleEntry.getName(), CompletableFuture.allOf(dependencies.toArray(new CompletableFuture[0]))
+                .thenRunAsync(() -> moduleEntry.getModule().onLoad(), loaderPool));
+        }
+        
+        List<ModuleEntry> loaded = new ArrayList<>();
+        for (ModuleEntry moduleEntry : sorted) {
+            try {
+                loads.get(moduleEntry.getName()).join();
+            } catch (CompletionException e) {
+                if (moduleEntry.getDepends().stream().anyMatch(dependency -> !moduleEntries.containsKey(dependency))) {
+                    LOGGER.log(Level.ERROR, "[Module] " + moduleEntry.getName() + " wasn't loaded, because a module it requires failed to load.");
+                } else {
+                    LOGGER.log(Level.ERROR, "[Module] An unexpected error occured while loading module " + moduleEntry.getName());
+                    e.getCause().printStackTrace();
+                }
+                moduleEntries.remove(moduleEntry.getName());
+                continue;
+            }
+            registerModule(moduleEntry);
+            loaded.add(moduleEntry);
+        }
+        publish(loaded);
+    }
+    
+    /**
+     * Finds the main classes of the specified jars.
+     * Jars which didn't change since they were indexed are taken from the index,
+     * all other jars are scanned together in a single ClassGraph scan and added to the index.
+     *
+     * @param jars {@link List} of module jars.
+     * @return {@link List} of the modules found in the jars.
+     */
+    private List<ModuleCandidate> discoverModules(List<File> jars) {
+        List<ModuleCandidate> candidates = new ArrayList<>();
+        List<File> unindexedJars = new ArrayList<>();
+        for (File moduleJar : jars) {
+            ModuleIndex.Entry indexEntry = moduleIndex.get(moduleJar);
+            if (indexEntry == null) {
+                unindexedJars.add(moduleJar);
+            } else {
+                candidates.add(new ModuleCandidate(moduleJar, indexEntry.getClassName(), indexEntry.getName(), indexEntry.getAuthor(),
+                    indexEntry.hasModels(), indexEntry.isLazy(), indexEntry.getDepends(), indexEntry.getSoftDepends()));
+            }
+        }
+        if (unindexedJars.isEmpty()) {
+            return candidates;
+        }
+        
+        // Use a single ClassGraph scan of the remaining jars to find their main classes, which are annotated with @ModuleInfo.
+        long scanStart = System.currentTimeMillis();
+        try (ScanResult scanResult = new ClassGraph()
+            .overrideClasspath(unindexedJars)
+            .enableAnnotationInfo()
+            .enableExternalClasses()
+            .disableRuntimeInvisibleAnnotations()
+            .disableNestedJarScanning()
+            .scan()) {
+            Map<String, List<ClassInfo>> mainClassesByJar = new HashMap<>();
+            for (ClassInfo classInfo : scanResult.getClassesWithAnnotation(ModuleInfo.class.getCanonicalName())) {
+                mainClassesByJar.computeIfAbsent(classInfo.getClasspathElementFile().getName(), jar -> new ArrayList<>()).add(classInfo);
+            }
+            Set<String> modelJars = new HashSet<>();
+            for (ClassInfo classInfo : scanResult.getSubclasses(Model.class.getName())) {
+                modelJars.add(classInfo.getClasspathElementFile().getName());
+            }
+            for (Resource resource : scanResult.getResourcesWithPath(ModelIndexProcessor.INDEX_PATH)) {
+                modelJars.add(resource.getClasspathElementFile().getName());
+            }
+            for (File moduleJar : unindexedJars) {
+                List<ClassInfo> mainClasses = mainClassesByJar.get(moduleJar.getName());
+                if (mainClasses == null || mainClasses.isEmpty()) {
                     LOGGER.log(Level.ERROR, "[Module] Module's main class could not be found for Module: " + moduleJar.getName());
                     continue;
                 }
-                if (classInfoListAnnotations.size() >= 2) {
+                if (mainClasses.size() >= 2) {
                     LOGGER.log(Level.ERROR, "[Module] Module " + moduleJar.getName() + " had more than 1 main class.");
                     continue;
                 }
-                ClassInfo classInfo = classInfoListAnnotations.get(0);
+                ClassInfo classInfo = mainClasses.get(0);
                 if (!classInfo.extendsSuperclass(Module.class.getCanonicalName())) {
                     LOGGER.log(Level.ERROR, "[Module] " + moduleJar.getName() + "'s main class was found, however it doesn't extend the module superclass.");
                     continue;
@@ -118,76 +339,540 @@ public class ModuleHandler {
                 AnnotationParameterValueList parameterValues = annotationInfo.getParameterValues();
                 String moduleName = (String) parameterValues.getValue("name");
                 String moduleAuthor = (String) parameterValues.getValue("author");
-                Module module = classLoader.loadClass(classInfo.getName()).asSubclass(Module.class).newInstance();
-                moduleEntries.put(moduleName, new ModuleEntry(moduleName, moduleAuthor, module));
-            } catch (MalformedURLException | NoSuchMethodException |
-                IllegalAccessException | InvocationTargetException |
-                ClassNotFoundException | InstantiationException e) {
-                LOGGER.log(Level.ERROR, "[Module] An unexpected error occured while importing module " + moduleJar.getName());
-                e.printStackTrace();
+                // Default values aren't part of the scanned class file.
+                boolean lazy = Boolean.TRUE.equals(parameterValues.getValue("lazy"));
+                List<String> depends = toNames(parameterValues.getValue("depends"));
+                List<String> softDepends = toNames(parameterValues.getValue("softDepends"));
+                boolean models = modelJars.contains(moduleJar.getName());
+                candidates.add(new ModuleCandidate(moduleJar, classInfo.getName(), moduleName, moduleAuthor, models, lazy, depends, softDepends));
+                moduleIndex.put(moduleJar, classInfo.getName(), moduleName, moduleAuthor, models, lazy, depends, softDepends);
             }
         }
-        
-        for (ModuleEntry moduleEntry : getModuleEntries()) {
-            Module module = moduleEntry.getModule();
-            module.onLoad();
-            
-            CommandHandler commandHandler = CommandHandler.getInstance();
-            // add Configs
-            if (module.getModuleConfigNodes() != null && !module.getModuleConfigNodes().isEmpty()) {
-                module.getModuleConfigNodes().forEach((s, aClass) -> ConfigurationHandler.getInstance().addConfig(s, aClass));
-            }
-            // add Contexts
-            if (module.getCommandContexts() != null && !module.getCommandContexts().isEmpty()) {
-                module.getCommandContexts().forEach(commandHandler::registerContext);
-            }
-            // add Sync completions
-            if (module.getSyncCommandCompletions() != null && !module.getSyncCommandCompletions().isEmpty()) {
-                module.getSyncCommandCompletions().forEach(commandHandler::registerCompletion);
+        LOGGER.log(Level.DEBUG, "[Module] Scanned " + unindexedJars.size() + " module jars in " + (System.currentTimeMillis() - scanStart) + "ms.");
+        return candidates;
+    }
+    
+    private static List<String> toNames(@Nullable Object value) {
+        List<String> names = new ArrayList<>();
+        if (value instanceof Object[]) {
+            for (Object name : (Object[]) value) {
+                names.add(String.valueOf(name));
             }
-            // add Async completions
-            if (module.getAsyncCommandCompletions() != null && !module.getAsyncCommandCompletions().isEmpty()) {
-                module.getAsyncCommandCompletions().forEach(commandHandler::registerAsyncCompletion);
+        } else if (value != null) {
+            names.add(String.valueOf(value));
+        }
+        return names;
+    }
+    
+    /**
+     * Creates the {@link ClassLoader} for the specified module.
+     * Modules get their own {@link ModuleClassLoader}, unless they contain database models,
+     * those are added to the plugin's ClassLoader, because ActiveJDBC can only see models there.
+     *
+     * @param candidate {@link ModuleCandidate} to create the ClassLoader for.
+     * @return {@link ClassLoader} of the module, null if it couldn't be created.
+     */
+    @Nullable
+    private ClassLoader createClassLoader(ModuleCandidate candidate) {
+        URLClassLoader pluginClassLoader = (URLClassLoader) DHCore.class.getClassLoader();
+        try {
+            URL url = candidate.jar.toURI().toURL();
+            // Spigot may have already loaded the JAR, just to make sure we have this check.
+            if (Arrays.asList(pluginClassLoader.getURLs()).contains(url)) {
+                return pluginClassLoader;
             }
-            // add Commands
-            if (module.getCommands() != null && !module.getCommands().isEmpty()) {
-                module.getCommands().forEach(commandHandler::registerCommand);
+            if (!candidate.models) {
+                return new ModuleClassLoader(candidate.jar, pluginClassLoader, moduleClasses);
             }
-            
+            // Add JAR to ClassLoader
+            Method method = pluginClassLoader.getClass().getSuperclass().getDeclaredMethod("addURL", URL.class);
+            method.setAccessible(true);
+            method.invoke(pluginClassLoader, url);
+            return pluginClassLoader;
+        } catch (IOException | NoSuchMethodException |
+            IllegalAccessException | InvocationTargetException e) {
+            LOGGER.log(Level.ERROR, "[Module] An unexpected error occured while importing module " + candidate.jar.getName());
+            e.printStackTrace();
+            return null;
         }
     }
     
+    private void registerModule(ModuleEntry moduleEntry) {
+        Module module = moduleEntry.getModule();
+        CommandHandler commandHandler = CommandHandler.getInstance();
+        // add Configs
+        if (module.getModuleConfigNodes() != null && !module.getModuleConfigNodes().isEmpty()) {
+            module.getModuleConfigNodes().forEach((s, aClass) -> ConfigurationHandler.getInstance().addConfig(s, aClass));
+        }
+        // add Contexts
+        if (module.getCommandContexts() != null && !module.getCommandContexts().isEmpty()) {
+            module.getCommandContexts().forEach(commandHandler::registerContext);
+        }
+        // add Sync completions
+        if (module.getSyncCommandCompletions() != null && !module.getSyncCommandCompletions().isEmpty()) {
+            module.getSyncCommandCompletions().forEach(commandHandler::registerCompletion);
+        }
+        // add Async completions
+        if (module.getAsyncCommandCompletions() != null && !module.getAsyncCommandCompletions().isEmpty()) {
+            module.getAsyncCommandCompletions().forEach(commandHandler::registerAsyncCompletion);
+        }
+        // Commands are registered when the module is enabled, as disabling the module unregisters them.
+    }
+    
+    private void unregisterModule(Module module) {
+        CommandHandler commandHandler = CommandHandler.getInstance();
+        if (module.getCommandContexts() != null) {
+            module.getCommandContexts().keySet().forEach(commandHandler::unregisterContext);
+        }
+        if (module.getSyncCommandCompletions() != null) {
+            module.getSyncCommandCompletions().keySet().forEach(commandHandler::unregisterCompletion);
+        }
+        if (module.getAsyncCommandCompletions() != null) {
+            module.getAsyncCommandCompletions().keySet().forEach(commandHandler::unregisterAsyncCompletion);
+        }
+    }
+    
+    /**
+     * Reloads the specified module from its jar, without restarting the server.
+     * The module is disabled and unregistered, its ClassLoader is closed and the module is loaded again.
+     * If the module's jar was replaced by a jar with another name, the jar containing the module is used.
+     * Modules which other loaded modules depend on can't be reloaded, as those would keep using the old module's classes.
+     *
+     * @param moduleEntry {@link ModuleEntry} of the module to be reloaded.
+     * @return {@link ModuleEntry} of the reloaded module, null if it couldn't be reloaded.
+     */
+    @Nullable
+    public ModuleEntry reloadModule(ModuleEntry moduleEntry) {
+        Module module = moduleEntry.getModule();
+        if (!moduleEntry.isReloadable()) {
+            LOGGER.log(Level.ERROR, "[Module] " + moduleEntry.getName() + " contains database models, it can only be updated with a restart.");
+            return null;
+        }
+        List<ModuleEntry> dependents = getReloadBlockingDependents(moduleEntry);
+        if (!dependents.isEmpty()) {
+            LOGGER.log(Level.ERROR, "[Module] " + moduleEntry.getName() + " can't be reloaded, these modules depend on it: "
+                + dependents.stream().map(ModuleEntry::getName).collect(Collectors.joining(", ")));
+            return null;
+        }
+        // Look for the module in its own jar first, then in jars which aren't used by another module.
+        List<File> jars = new ArrayList<>();
+        if (moduleEntry.getJar().isFile()) {
+            jars.add(moduleEntry.getJar());
+        }
+        File[] folderJars = moduleFolder.listFiles(((dir, name) -> name.endsWith(".jar")));
+        if (folderJars != null) {
+            Set<File> usedJars = moduleEntries.values().stream().map(ModuleEntry::getJar).collect(Collectors.toSet());
+            Arrays.stream(folderJars).filter(jar -> !usedJars.contains(jar)).forEach(jars::add);
+        }
+        ModuleCandidate candidate = discoverModules(jars).stream()
+            .filter(found -> found.name.equals(moduleEntry.getName()))
+            .findFirst().orElse(null);
+        moduleIndex.save();
+        if (candidate == null) {
+            LOGGER.log(Level.ERROR, "[Module] No module jar contains " + moduleEntry.getName() + " anymore.");
+            return null;
+        }
+        if (candidate.models) {
+            LOGGER.log(Level.ERROR, "[Module] The new version of " + moduleEntry.getName() + " contains database models, it can only be loaded with a restart.");
+            return null;
+        }
+        
+        List<String> missingDependencies = candidate.depends.stream()
+            .filter(dependency -> !moduleEntries.containsKey(dependency))
+            .collect(Collectors.toList());
+        if (!missingDependencies.isEmpty()) {
+            LOGGER.log(Level.ERROR, "[Module] The new version of " + moduleEntry.getName() + " requires modules which aren't loaded: "
+                + String.join(", ", missingDependencies));
+            return null;
+        }
+        
+        boolean wasEnabled = module.isEnabled() || armedModules.contains(module);
+        if (wasEnabled) {
+            disableModule(module);
+        }
+        unregisterModule(module);
+        moduleEntries.remove(moduleEntry.getName());
+        ModuleClassLoader oldClassLoader = (ModuleClassLoader) module.getClass().getClassLoader();
+        try {
+            oldClassLoader.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARN, "[Module] The old ClassLoader of " + moduleEntry.getName() + " couldn't be closed.");
+        }
+        
+        ClassLoader classLoader = createClassLoader(candidate);
+        ModuleEntry reloadedEntry = classLoader == null ? null : candidate.instantiate(classLoader);
+        if (reloadedEntry == null) {
+            publish(sortModules());
+            return null;
+        }
+        moduleEntries.put(reloadedEntry.getName(), reloadedEntry);
+        List<ModuleEntry> sorted = sortModules();
+        if (sorted.size() < moduleEntries.size()) {
+            LOGGER.log(Level.ERROR, "[Module] The new version of " + moduleEntry.getName() + " creates circular dependencies, it wasn't loaded.");
+            moduleEntries.remove(reloadedEntry.getName());
+            publish(sortModules());
+            return null;
+        }
+        publish(sorted);
+        Module reloadedModule = reloadedEntry.getModule();
+        try {
+            reloadedModule.onLoad();
+        } catch (Exception e) {
+            LOGGER.log(Level.ERROR, "[Module] An unexpected error occured while loading module " + moduleEntry.getName());
+            e.printStackTrace();
+            moduleEntries.remove(reloadedEntry.getName());
+            publish(sortModules());
+            return null;
+        }
+        registerModule(reloadedEntry);
+        if (reloadedModule.getSchemaResourcesPath() != null && !reloadedModule.getSchemaResourcesPath().isEmpty()) {
+            DatabaseHandler.getInstance().updateSchema();
+        }
+        if (wasEnabled) {
+            enableModule(reloadedModule);
+        }
+        LOGGER.log(Level.INFO, "[Module] Reloaded " + reloadedEntry.getName() + " from " + candidate.jar.getName() + ".");
+        return reloadedEntry;
+    }
+    
     public void enableModules() {
         for (Module module : getModules()) {
-            if (module.isEnabled()) {
-                return;
+            if (module.isEnabled() || armedModules.contains(module)) {
+                continue;
             }
             enableModule(module);
         }
     }
     
+    /**
+     * Enables the specified module.
+     * Lazy modules only get their listeners and commands registered, they are enabled on their first use.
+     *
+     * @param module {@link Module} to be enabled.
+     */
     public void enableModule(Module module) {
-        module.getListeners().forEach(listener -> Bukkit.getPluginManager().registerEvents(listener, DHCore.getPlugin(DHCore.class)));
-        module.onEnable();
+        CommandHandler commandHandler = CommandHandler.getInstance();
+        ModuleEntry moduleEntry = getModuleEntry(module);
+        if (moduleEntry != null) {
+            if (moduleEntry.isLazy()) {
+                armModule(moduleEntry);
+                return;
+            }
+            enableDependencies(moduleEntry, true);
+            // Registering every handler on its own lets us time the handlers per module.
+            module.getListeners().forEach(listener -> registerModuleListener(moduleEntry, listener));
+        } else {
+            module.getListeners().forEach(listener -> Bukkit.getPluginManager().registerEvents(listener, DHCore.getPlugin(DHCore.class)));
+        }
+        module.getCommands().forEach(commandHandler::registerCommand);
+        runWatched(moduleEntry, "onEnable", module::onEnable);
         module.setEnabled(true);
+        refresh();
+    }
+    
+    /**
+     * Runs the specified action of a module as an operation watched by the {@link MainThreadWatchdog}.
+     *
+     * @param moduleEntry {@link ModuleEntry} of the module, null if the module wasn't loaded by this handler.
+     * @param description {@link String} describing the action.
+     * @param action      {@link Runnable} to be run.
+     */
+    private void runWatched(@Nullable ModuleEntry moduleEntry, String description, Runnable action) {
+        MainThreadWatchdog watchdog = MainThreadWatchdog.getInstance();
+        String moduleName = moduleEntry == null ? null : moduleEntry.getName();
+        MainThreadWatchdog.Operation operation = watchdog.enter(moduleName, description);
+        String previousModule = moduleName == null ? null : ModuleContext.enter(moduleName);
+        try {
+            action.run();
+        } finally {
+            if (moduleName != null) {
+                ModuleContext.exit(previousModule);
+            }
+            watchdog.exit(operation);
+        }
+    }
+    
+    private void armModule(ModuleEntry moduleEntry) {
+        Module module = moduleEntry.getModule();
+        if (!armedModules.add(module)) {
+            return;
+        }
+        refresh();
+        enableDependencies(moduleEntry, false);
+        for (Listener listener : module.getListeners()) {
+            registerModuleListener(moduleEntry, listener);
+        }
+        // The command manager enables the module before one of its commands is executed or completed.
+        module.getCommands().forEach(CommandHandler.getInstance()::registerCommand);
+        LOGGER.log(Level.DEBUG, "[Module] " + moduleEntry.getName() + " will be enabled on its first use.");
+    }
+    
+    private void registerModuleListener(ModuleEntry moduleEntry, Listener listener) {
+        Set<Method> methods = new HashSet<>(Arrays.asList(listener.getClass().getMethods()));
+        methods.addAll(Arrays.asList(listener.getClass().getDeclaredMethods()));
+        for (Method method : methods) {
+            EventHandler eventHandler = method.getAnnotation(EventHandler.class);
+            if (eventHandler == null || method.isBridge() || method.isSynthetic() || method.getParameterCount() != 1
+                || !Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+                continue;
+            }
+            Class<? extends Event> eventClass = method.getParameterTypes()[0].asSubclass(Event.class);
+            ModuleEventExecutor executor = new ModuleEventExecutor(moduleEntry, eventClass, method,
+                listenerStatistics.get(moduleEntry.getName(), eventClass, method));
+            Bukkit.getPluginManager().registerEvent(eventClass, listener, eventHandler.priority(), executor,
+                DHCore.getPlugin(DHCore.class), eventHandler.ignoreCancelled());
+        }
+    }
+    
+    /**
+     * Enables the specified lazy module, if it's waiting for its first use.
+     * Modules are always enabled on the main thread, other threads wait for it.
+     *
+     * @param moduleEntry {@link ModuleEntry} of the module to be enabled.
+     */
+    public void activateModule(ModuleEntry moduleEntry) {
+        Module module = moduleEntry.getModule();
+        if (!armedModules.contains(module)) {
+            return;
+        }
+        if (!Bukkit.isPrimaryThread()) {
+            try {
+                Bukkit.getScheduler().callSyncMethod(DHCore.getPlugin(DHCore.class), () -> {
+                    activateModule(moduleEntry);
+                    return null;
+                }).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                LOGGER.log(Level.ERROR, "[Module] An unexpected error occured while enabling module " + moduleEntry.getName());
+                e.getCause().printStackTrace();
+            }
+            return;
+        }
+        // Removing it first keeps events fired by onEnable from enabling the module twice.
+        if (!armedModules.remove(module)) {
+            return;
+        }
+        enableDependencies(moduleEntry, true);
+        LOGGER.log(Level.INFO, "[Module] Enabling " + moduleEntry.getName() + " on its first use.");
+        runWatched(moduleEntry, "onEnable", module::onEnable);
+        module.setEnabled(true);
+        refresh();
+    }
+    
+    /**
+     * Makes sure the dependencies of the specified module are enabled before it.
+     *
+     * @param moduleEntry {@link ModuleEntry} of the module which is about to be enabled.
+     * @param activate    true if lazy dependencies have to be enabled right away, false if they may wait for their first use.
+     */
+    private void enableDependencies(ModuleEntry moduleEntry, boolean activate) {
+        List<String> dependencies = new ArrayList<>(moduleEntry.getDepends());
+        dependencies.addAll(moduleEntry.getSoftDepends());
+        for (String dependency : dependencies) {
+            ModuleEntry dependencyEntry = moduleEntries.get(dependency);
+            if (dependencyEntry == null || dependencyEntry == moduleEntry) {
+                continue;
+            }
+            Module dependencyModule = dependencyEntry.getModule();
+            if (!dependencyModule.isEnabled() && !armedModules.contains(dependencyModule)) {
+                enableModule(dependencyModule);
+            }
+            if (activate) {
+                activateModule(dependencyEntry);
+            }
+        }
+    }
+    
+    /**
+     * Gets the entries of the loaded modules which require the specified module.
+     *
+     * @param moduleEntry {@link ModuleEntry} of the required module.
+     * @return {@link List} of {@link ModuleEntry}s in load order.
+     */
+    public List<ModuleEntry> getDependents(ModuleEntry moduleEntry) {
+        return registry.getEntries().stream()
+            .filter(dependent -> dependent.getDepends().contains(moduleEntry.getName()))
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Gets the entries of the loaded modules which depend on the specified module, optional dependencies included.
+     * These modules may hold on to the module's classes, so the module mustn't be reloaded while they are loaded.
+     *
+     * @param moduleEntry {@link ModuleEntry} of the module to be reloaded.
+     * @return {@link List} of {@link ModuleEntry}s in load order.
+     */
+    public List<ModuleEntry> getReloadBlockingDependents(ModuleEntry moduleEntry) {
+        return registry.getEntries().stream()
+            .filter(dependent -> dependent != moduleEntry)
+            .filter(dependent -> dependent.getDepends().contains(moduleEntry.getName())
+                || dependent.getSoftDepends().contains(moduleEntry.getName()))
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Enables the lazy module which owns the specified command, if there is one.
+     * Asynchronous tab completions don't wait for the main thread, the module is enabled on the next tick instead.
+     *
+     * @param command {@link BaseCommand} which is about to be executed or completed.
+     * @param isAsync true if the command is completed asynchronously, false otherwise.
+     */
+    public void activateForCommand(BaseCommand command, boolean isAsync) {
+        if (armedModules.isEmpty()) {
+            return;
+        }
+        String className = command.getClass().getName();
+        for (ModuleEntry moduleEntry : registry.getEntries()) {
+            if (!armedModules.contains(moduleEntry.getModule()) || !className.startsWith(moduleEntry.getPackagePrefix())) {
+                continue;
+            }
+            if (isAsync) {
+                Bukkit.getScheduler().runTask(DHCore.getPlugin(DHCore.class), () -> activateModule(moduleEntry));
+            } else {
+                activateModule(moduleEntry);
+            }
+            return;
+        }
     }
     
     public void disableModules() {
-        for (Module module : getModules()) {
-            if (!module.isEnabled()) {
-                return;
+        disablingModules = true;
+        List<Module> modules = getModules();
+        for (int i = modules.size() - 1; i >= 0; i--) {
+            Module module = modules.get(i);
+            if (!module.isEnabled() && !armedModules.contains(module)) {
+                continue;
             }
             disableModule(module);
         }
+        // Executors of modules which were used after they had been disabled.
+        new ArrayList<>(asyncExecutors.keySet()).forEach(this::closeAsyncExecutor);
+        // The server is stopping, so the main thread waits for the tasks, all executors share one deadline.
+        long deadline = System.currentTimeMillis() + getAsyncShutdownTimeout();
+        for (ModuleExecutor executor : closedExecutors) {
+            awaitAsyncExecutor(executor, Math.max(0, deadline - System.currentTimeMillis()));
+        }
+        closedExecutors.clear();
+        disablingModules = false;
+        synchronized (asyncPoolLock) {
+            if (sharedAsyncPool != null) {
+                sharedAsyncPool.shutdown();
+                sharedAsyncPool = null;
+            }
+        }
     }
     
+    /**
+     * Disables the specified module, the enabled modules which require it are disabled first.
+     *
+     * @param module {@link Module} to be disabled.
+     */
     public void disableModule(Module module) {
         CommandHandler commandHandler = CommandHandler.getInstance();
+        ModuleEntry moduleEntry = getModuleEntry(module);
+        if (moduleEntry != null) {
+            List<ModuleEntry> dependents = getDependents(moduleEntry);
+            Collections.reverse(dependents);
+            for (ModuleEntry dependent : dependents) {
+                Module dependentModule = dependent.getModule();
+                if (dependentModule.isEnabled() || armedModules.contains(dependentModule)) {
+                    disableModule(dependentModule);
+                }
+            }
+        }
         
+        boolean wasArmed = armedModules.remove(module);
         module.getListeners().forEach(HandlerList::unregisterAll);
         module.getCommands().forEach(commandHandler::unregisterCommand);
-        module.onEnable();
+        // Lazy modules which were never used weren't enabled either.
+        if (!wasArmed) {
+            runWatched(moduleEntry, "onDisable", module::onDisable);
+        }
         module.setEnabled(false);
+        refresh();
+        ServiceRegistry.getInstance().unregisterAll(module);
+        if (moduleEntry != null) {
+            DatabaseHandler.getInstance().closeBulkhead(moduleEntry.getName());
+            TickJobScheduler.getInstance().cancelJobs(moduleEntry.getName());
+            closeAsyncExecutor(moduleEntry.getName());
+        }
+    }
+    
+    /**
+     * Gets the executor for the specified module's asynchronous tasks, it's created on first use.
+     *
+     * @param module {@link Module} which was loaded by this handler.
+     * @return {@link ModuleExecutor} of the module.
+     */
+    public ModuleExecutor getAsyncExecutor(Module module) {
+        ModuleEntry moduleEntry = getModuleEntry(module);
+        if (moduleEntry == null) {
+            throw new IllegalArgumentException("Module " + module.getClass().getName() + " wasn't loaded by the module handler.");
+        }
+        return asyncExecutors.computeIfAbsent(moduleEntry.getName(), this::createAsyncExecutor);
+    }
+    
+    private ModuleExecutor createAsyncExecutor(String moduleName) {
+        EnumConfiguration coreConfig = ConfigurationHandler.getInstance().getConfig("core");
+        int queueSize = ((Number) coreConfig.get(CoreConfiguration.MODULES_ASYNC_QUEUE_SIZE)).intValue();
+        if ((boolean) coreConfig.get(CoreConfiguration.MODULES_ASYNC_VIRTUAL_THREADS) && ModuleExecutor.isVirtualThreadsAvailable()) {
+            return new ModuleExecutor(moduleName, null, queueSize);
+        }
+        synchronized (asyncPoolLock) {
+            if (sharedAsyncPool == null) {
+                int threads = ((Number) coreConfig.get(CoreConfiguration.MODULES_ASYNC_THREADS)).intValue();
+                if (threads <= 0) {
+                    threads = Runtime.getRuntime().availableProcessors();
+                }
+                sharedAsyncPool = new ForkJoinPool(threads, pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("DHCore-Async-" + thread.getPoolIndex());
+                    return thread;
+                }, null, true);
+            }
+            return new ModuleExecutor(moduleName, sharedAsyncPool, queueSize);
+        }
+    }
+    
+    /**
+     * Stops the specified module's executor from accepting new tasks.
+     * The unfinished tasks are waited for on another thread, as they may be waiting for the main thread themselves.
+     *
+     * @param moduleName {@link String} containing the module's name.
+     */
+    private void closeAsyncExecutor(String moduleName) {
+        ModuleExecutor executor = asyncExecutors.remove(moduleName);
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        if (disablingModules) {
+            closedExecutors.add(executor);
+            return;
+        }
+        Thread waiter = new Thread(() -> awaitAsyncExecutor(executor, getAsyncShutdownTimeout()), "DHCore-AsyncShutdown-" + moduleName);
+        waiter.setDaemon(true);
+        waiter.start();
+    }
+    
+    private void awaitAsyncExecutor(ModuleExecutor executor, long timeoutMillis) {
+        if (!executor.awaitTermination(timeoutMillis)) {
+            LOGGER.log(Level.WARN, "[Module] Not all asynchronous tasks of " + executor.getModuleName() + " finished in time, the remaining tasks were dropped.");
+        }
+    }
+    
+    private long getAsyncShutdownTimeout() {
+        return ((Number) ConfigurationHandler.getInstance().getConfig("core").get(CoreConfiguration.MODULES_ASYNC_SHUTDOWN_TIMEOUT)).longValue();
+    }
+    
+    /**
+     * Gets the executors of all modules which used their executor.
+     *
+     * @return {@link List} of {@link ModuleExecutor}s.
+     */
+    public List<ModuleExecutor> getAsyncExecutors() {
+        return new ArrayList<>(asyncExecutors.values());
     }
     
     public void hookDependencies() {
@@ -196,6 +881,42 @@ public class ModuleHandler {
         }
     }
     
+    /**
+     * Finds the module that the first module class in the specified stack trace belongs to.
+     *
+     * @param stackTrace {@link StackTraceElement[]} to search through, innermost frame first.
+     * @return {@link ModuleEntry} of the calling module, null if no module is in the stack trace.
+     */
+    @Nullable
+    public ModuleEntry findCallingModule(StackTraceElement[] stackTrace) {
+        ModuleRegistry registry = this.registry;
+        if (registry.size() == 0) {
+            return null;
+        }
+        for (StackTraceElement element : stackTrace) {
+            String className = element.getClassName();
+            // The core and its relocated libraries are never part of a module.
+            if (className.startsWith("com.dreamhorizon.core.") || className.startsWith("java.")) {
+                continue;
+            }
+            for (ModuleEntry moduleEntry : registry.getEntries()) {
+                if (className.startsWith(moduleEntry.getPackagePrefix())) {
+                    return moduleEntry;
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Gets the timings of the modules' event handlers.
+     *
+     * @return {@link ListenerStatistics} of all modules.
+     */
+    public ListenerStatistics getListenerStatistics() {
+        return listenerStatistics;
+    }
+    
     /**
      * Gets the folder in which modules should be stored.
      *
@@ -206,12 +927,46 @@ public class ModuleHandler {
     }
     
     /**
-     * Gets a list of all enabled modules' entries.
+     * Builds a new snapshot of the specified modules and publishes it.
      *
-     * @return {@link List} of {@link ModuleEntry}
+     * @param entries {@link List} of {@link ModuleEntry}s in load order.
+     */
+    private synchronized void publish(List<ModuleEntry> entries) {
+        registry = new ModuleRegistry(entries, module -> module.isEnabled() || armedModules.contains(module));
+    }
+    
+    /**
+     * Publishes a new snapshot of the current modules, after one of them was enabled or disabled.
+     */
+    private synchronized void refresh() {
+        publish(registry.getEntries());
+    }
+    
+    /**
+     * Gets the current snapshot of the loaded modules, it never changes once it was published.
+     *
+     * @return {@link ModuleRegistry} of the loaded modules.
+     */
+    public ModuleRegistry getRegistry() {
+        return registry;
+    }
+    
+    /**
+     * Gets a list of all loaded modules' entries, every module comes after its dependencies.
+     *
+     * @return unmodifiable {@link List} of {@link ModuleEntry}
      */
     public List<ModuleEntry> getModuleEntries() {
-        return new ArrayList<>(moduleEntries.values());
+        return registry.getEntries();
+    }
+    
+    /**
+     * Gets a list of all loaded modules' names in alphabetical order.
+     *
+     * @return unmodifiable {@link List} of {@link String}s.
+     */
+    public List<String> getModuleNames() {
+        return registry.getNames();
     }
     
     /**
@@ -222,16 +977,36 @@ public class ModuleHandler {
      */
     @Nullable
     public ModuleEntry getModuleEntry(String moduleName) {
-        return moduleEntries.get(moduleName);
+        return registry.get(moduleName);
     }
     
     /**
-     * Gets a list of all enabled modules.
+     * Gets the entry of the specified module.
      *
-     * @return {@link List} of {@link Module}
+     * @param module {@link Module} which was loaded by this handler.
+     * @return {@link ModuleEntry} of the module, null if it wasn't loaded by this handler.
+     */
+    @Nullable
+    public ModuleEntry getModuleEntry(Module module) {
+        return registry.get(module);
+    }
+    
+    /**
+     * Gets a list of all loaded modules, every module comes after its dependencies.
+     *
+     * @return unmodifiable {@link List} of {@link Module}
      */
     public List<Module> getModules() {
-        return moduleEntries.values().stream().map(ModuleEntry::getModule).collect(Collectors.toList());
+        return registry.getModules();
+    }
+    
+    /**
+     * Gets a list of the enabled modules, lazy modules which wait for their first use included.
+     *
+     * @return unmodifiable {@link List} of {@link Module}
+     */
+    public List<Module> getEnabledModules() {
+        return registry.getEnabledModules();
     }
     
     /**
@@ -242,7 +1017,8 @@ public class ModuleHandler {
      */
     @Nullable
     public Module getModule(String moduleName) {
-        return moduleEntries.get(moduleName).getModule();
+        ModuleEntry moduleEntry = registry.get(moduleName);
+        return moduleEntry == null ? null : moduleEntry.getModule();
     }
     
     /**
@@ -252,7 +1028,7 @@ public class ModuleHandler {
      * @return {@link true} if a module exists with the specified name, false otherwise
      */
     public boolean isModuleEnabled(String moduleName) {
-        return moduleEntries.containsKey(moduleName);
+        return registry.contains(moduleName);
     }
     
     public static ModuleHandler getInstance() {
@@ -261,4 +1037,39 @@ public class ModuleHandler {
         }
         return instance;
     }
+    
+    private static class ModuleCandidate {
+        private final File jar;
+        private final String className;
+        private final String name;
+        private final String author;
+        private final boolean models;
+        private final boolean lazy;
+        private final List<String> depends;
+        private final List<String> softDepends;
+        
+        private ModuleCandidate(File jar, String className, String name, String author, boolean models, boolean lazy,
+                                List<String> depends, List<String> softDepends) {
+            this.jar = jar;
+            this.className = className;
+            this.name = name;
+            this.author = author;
+            this.models = models;
+            this.lazy = lazy;
+            this.depends = depends;
+            this.softDepends = softDepends;
+        }
+        
+        @Nullable
+        private ModuleEntry instantiate(ClassLoader classLoader) {
+            try {
+                Module module = classLoader.loadClass(className).asSubclass(Module.class).newInstance();
+                return new ModuleEntry(jar, name, author, lazy, depends, softDepends, module);
+            } catch (ClassNotFoundException | IllegalAccessException | InstantiationException | LinkageError e) {
+                LOGGER.log(Level.ERROR, "[Module] An unexpected error occured while importing module " + jar.getName());
+                e.printStackTrace();
+                return null;
+            }
+        }
+    }
 }
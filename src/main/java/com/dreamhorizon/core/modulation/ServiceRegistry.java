@@ -0,0 +1,194 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.modulation;
+
+import com.dreamhorizon.core.modulation.implementation.Module;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of services which modules provide to each other, keyed by the service's type.
+ * Services are stored in a {@link ClassValue}, so looking one up doesn't hash any strings.
+ * If more than one module provides a service, the one which registered it first is used,
+ * the others take over once it's unregistered. A module's services are unregistered when it's disabled.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public class ServiceRegistry {
+    private static final Logger LOGGER = LogManager.getLogger("com.dreamhorizon.core");
+    private static ServiceRegistry instance;
+    private final ClassValue<ServiceSlot> slots = new ClassValue<ServiceSlot>() {
+        @Override
+        protected ServiceSlot computeValue(Class<?> type) {
+            return new ServiceSlot();
+        }
+    };
+    private final Map<Module, Set<Class<?>>> providedServices = new ConcurrentHashMap<>();
+    
+    private ServiceRegistry() {
+    }
+    
+    /**
+     * Registers the specified implementation of a service.
+     * Modules should register their services in onEnable, as they are unregistered when the module is disabled.
+     *
+     * @param provider       {@link Module} which provides the service.
+     * @param service        {@link Class} of the service, usually an interface.
+     * @param implementation Implementation of the service.
+     * @param <T>            type of the service.
+     */
+    public <T> void register(Module provider, Class<T> service, T implementation) {
+        if (!service.isInstance(implementation)) {
+            throw new IllegalArgumentException(implementation.getClass().getName() + " doesn't implement " + service.getName() + ".");
+        }
+        ServiceSlot slot = slots.get(service);
+        synchronized (slot) {
+            Registration registration = new Registration(provider, implementation);
+            // Registering again replaces the implementation in place, so the provider keeps its precedence.
+            int index = slot.indexOf(provider);
+            if (index < 0) {
+                slot.registrations.add(registration);
+            } else {
+                slot.registrations.set(index, registration);
+            }
+            slot.update();
+        }
+        providedServices.computeIfAbsent(provider, module -> ConcurrentHashMap.newKeySet()).add(service);
+        LOGGER.log(Level.DEBUG, "[Module] " + provider.getClass().getSimpleName() + " registered service " + service.getName() + ".");
+    }
+    
+    /**
+     * Unregisters the specified module's implementation of a service.
+     *
+     * @param provider {@link Module} which provided the service.
+     * @param service  {@link Class} of the service.
+     */
+    public void unregister(Module provider, Class<?> service) {
+        Set<Class<?>> services = providedServices.get(provider);
+        if (services == null || !services.remove(service)) {
+            return;
+        }
+        removeRegistration(provider, service);
+    }
+    
+    /**
+     * Unregisters all services provided by the specified module.
+     *
+     * @param provider {@link Module} which provided the services.
+     */
+    public void unregisterAll(Module provider) {
+        Set<Class<?>> services = providedServices.remove(provider);
+        if (services == null) {
+            return;
+        }
+        for (Class<?> service : services) {
+            removeRegistration(provider, service);
+        }
+    }
+    
+    private void removeRegistration(Module provider, Class<?> service) {
+        ServiceSlot slot = slots.get(service);
+        synchronized (slot) {
+            slot.registrations.removeIf(registration -> registration.provider == provider);
+            slot.update();
+        }
+    }
+    
+    /**
+     * Gets the implementation of the specified service.
+     *
+     * @param service {@link Class} of the service.
+     * @param <T>     type of the service.
+     * @return Implementation of the service, null if no enabled module provides it.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T getService(Class<T> service) {
+        // Only instances of the service are ever stored in its slot.
+        Registration active = slots.get(service).active;
+        return active == null ? null : (T) active.implementation;
+    }
+    
+    /**
+     * Gets the module which provides the implementation of the specified service.
+     *
+     * @param service {@link Class} of the service.
+     * @return {@link Module} which provides the service, null if no enabled module provides it.
+     */
+    @Nullable
+    public Module getProvider(Class<?> service) {
+        Registration active = slots.get(service).active;
+        return active == null ? null : active.provider;
+    }
+    
+    /**
+     * Checks to see if an implementation of the specified service is registered.
+     *
+     * @param service {@link Class} of the service.
+     * @return true if the service is provided by a module, false otherwise.
+     */
+    public boolean isProvided(Class<?> service) {
+        return slots.get(service).active != null;
+    }
+    
+    public static ServiceRegistry getInstance() {
+        if (instance == null) {
+            instance = new ServiceRegistry();
+        }
+        return instance;
+    }
+    
+    private static class ServiceSlot {
+        // Guarded by the slot, the active registration is read without a lock.
+        private final List<Registration> registrations = new ArrayList<>();
+        private volatile Registration active;
+        
+        private int indexOf(Module provider) {
+            for (int i = 0; i < registrations.size(); i++) {
+                if (registrations.get(i).provider == provider) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        private void update() {
+            active = registrations.isEmpty() ? null : registrations.get(0);
+        }
+    }
+    
+    private static class Registration {
+        private final Module provider;
+        private final Object implementation;
+        
+        private Registration(Module provider, Object implementation) {
+            this.provider = provider;
+            this.implementation = implementation;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.modulation.implementation;
+
+import com.dreamhorizon.core.util.LatencyHistogram;
+import org.bukkit.event.Event;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Aggregated timings of the modules' event handlers, per module, event and handler method.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public class ListenerStatistics {
+    private final Map<HandlerKey, HandlerStatistics> statistics = new ConcurrentHashMap<>();
+    
+    /**
+     * Gets the statistics of the specified event handler.
+     *
+     * @param module     {@link String} containing the module's name.
+     * @param eventClass {@link Class} of the handled event.
+     * @param method     {@link Method} handling the event.
+     * @return {@link HandlerStatistics} to record the handler's executions with.
+     */
+    public HandlerStatistics get(String module, Class<? extends Event> eventClass, Method method) {
+        HandlerKey key = new HandlerKey(module, eventClass.getSimpleName(),
+            method.getDeclaringClass().getSimpleName() + "#" + method.getName());
+        return statistics.computeIfAbsent(key, k -> new HandlerStatistics(k.module, k.event, k.handler));
+    }
+    
+    /**
+     * Gets the handlers which took the most time in total.
+     *
+     * @param module {@link String} containing the name of the module to get the handlers of, null for all modules.
+     * @param amount maximum amount of handlers.
+     * @return {@link List} of {@link HandlerStatistics} sorted by total time, descending.
+     */
+    public List<HandlerStatistics> getTop(@Nullable String module, int amount) {
+        List<HandlerStatistics> top = statistics.values().stream()
+            .filter(handler -> module == null || handler.getModule().equals(module))
+            .filter(handler -> handler.getLatency().getExecutions() > 0)
+            .sorted(Comparator.comparingLong((HandlerStatistics handler) -> handler.getLatency().getTotalNanos()).reversed())
+            .collect(Collectors.toCollection(ArrayList::new));
+        return top.size() > amount ? top.subList(0, amount) : top;
+    }
+    
+    /**
+     * Resets the timings of every handler, the handlers keep recording afterwards.
+     */
+    public void reset() {
+        statistics.values().forEach(HandlerStatistics::reset);
+    }
+    
+    public static class HandlerStatistics {
+        private final String module;
+        private final String event;
+        private final String handler;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        
+        private HandlerStatistics(String module, String event, String handler) {
+            this.module = module;
+            this.event = event;
+            this.handler = handler;
+        }
+        
+        public void record(long nanos) {
+            latency.record(nanos);
+        }
+        
+        private void reset() {
+            latency.reset();
+        }
+        
+        public String getModule() {
+            return module;
+        }
+        
+        public String getEvent() {
+            return event;
+        }
+        
+        public String getHandler() {
+            return handler;
+        }
+        
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+    }
+    
+    private static class HandlerKey {
+        private final String module;
+        private final String event;
+        private final String handler;
+        
+        private HandlerKey(String module, String event, String handler) {
+            this.module = module;
+            this.event = event;
+            this.handler = handler;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof HandlerKey)) {
+                return false;
+            }
+            HandlerKey that = (HandlerKey) o;
+            return module.equals(that.module) && event.equals(that.event) && handler.equals(that.handler);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(module, event, handler);
+        }
+    }
+}
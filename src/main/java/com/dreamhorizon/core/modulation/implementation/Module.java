@@ -24,6 +24,7 @@ import co.aikar.commands.CommandCompletions;
 import co.aikar.commands.contexts.ContextResolver;
 import com.dreamhorizon.core.commands.implementation.DHCommand;
 import com.dreamhorizon.core.configuration.implementation.ConfigurationNode;
+import com.dreamhorizon.core.modulation.ModuleHandler;
 import org.bukkit.event.Listener;
 
 import java.util.List;
@@ -40,6 +41,10 @@ public abstract class Module {
     
     public abstract List<DHCommand> getCommands();
     
+    /**
+     * Called once the module was instantiated, after the onLoad of its dependencies.
+     * Modules are loaded concurrently on worker threads, so this must not use the Bukkit API.
+     */
     public void onLoad() {
     }
     
@@ -69,6 +74,17 @@ public abstract class Module {
         return null;
     }
     
+    /**
+     * Gets the executor for this module's asynchronous tasks, instead of creating thread pools or using the Bukkit scheduler.
+     * Tasks run on virtual threads on Java 21 and newer, otherwise on a pool shared by all modules.
+     * The executor is shut down when the module is disabled.
+     *
+     * @return {@link ModuleExecutor} of this module.
+     */
+    public ModuleExecutor asyncExecutor() {
+        return ModuleHandler.getInstance().getAsyncExecutor(this);
+    }
+    
     public boolean isEnabled() {
         return enabled;
     }
@@ -0,0 +1,109 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.modulation.implementation;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * {@link ClassLoader} of a single module jar, so that the module can be unloaded and reloaded at runtime.
+ * Classes are looked up in the plugin's {@link ClassLoader} first, then in the module's jar
+ * and finally in the jar of the module which contains them, so that modules can use each other's classes.
+ * <p>
+ * The owning module of a class is looked up in an index shared by all module class loaders,
+ * the class is then loaded through the owner's {@link #loadClass(String)} without holding this loader's locks for it,
+ * because two modules which resolve each other's classes at the same time would otherwise deadlock.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public class ModuleClassLoader extends URLClassLoader {
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+    
+    private final File jar;
+    private final Map<String, ModuleClassLoader> classIndex;
+    private final Set<String> classNames;
+    
+    /**
+     * @param jar        {@link File} of the module jar.
+     * @param parent     {@link ClassLoader} of the plugin.
+     * @param classIndex {@link Map} shared by all module class loaders, from class names to the loader of their jar.
+     *                   It has to be safe for concurrent use, the classes of this jar are added to it.
+     * @throws IOException if the jar can't be read.
+     */
+    public ModuleClassLoader(File jar, ClassLoader parent, Map<String, ModuleClassLoader> classIndex) throws IOException {
+        super(new URL[]{jar.toURI().toURL()}, parent);
+        this.jar = jar;
+        this.classIndex = classIndex;
+        this.classNames = Collections.unmodifiableSet(readClassNames(jar));
+        for (String className : classNames) {
+            classIndex.putIfAbsent(className, this);
+        }
+    }
+    
+    private static Set<String> readClassNames(File jar) throws IOException {
+        Set<String> classNames = new HashSet<>();
+        try (JarFile jarFile = new JarFile(jar)) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                String entryName = entries.nextElement().getName();
+                if (!entryName.endsWith(".class") || entryName.startsWith("META-INF/") || entryName.endsWith("module-info.class")) {
+                    continue;
+                }
+                classNames.add(entryName.substring(0, entryName.length() - ".class".length()).replace('/', '.'));
+            }
+        }
+        return classNames;
+    }
+    
+    @Override
+    public Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (!classNames.contains(name)) {
+            ModuleClassLoader owner = classIndex.get(name);
+            if (owner != null && owner != this) {
+                // Outside of this loader's lock for the name, the owner asks the plugin's ClassLoader first and takes its own lock.
+                return owner.loadClass(name);
+            }
+        }
+        return super.loadClass(name, resolve);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        for (String className : classNames) {
+            classIndex.remove(className, this);
+        }
+        super.close();
+    }
+    
+    public File getJar() {
+        return jar;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.modulation.implementation;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Remembers which module the current thread is working for, e.g. while it runs a module's asynchronous task or event handler.
+ * This lets the core attribute work to modules without walking the stack.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public final class ModuleContext {
+    private static final ThreadLocal<String> CURRENT_MODULE = new ThreadLocal<>();
+    
+    private ModuleContext() {
+    }
+    
+    /**
+     * Gets the name of the module the current thread is working for.
+     *
+     * @return {@link String} containing the module's name, null if the thread isn't working for a module.
+     */
+    @Nullable
+    public static String getCurrentModule() {
+        return CURRENT_MODULE.get();
+    }
+    
+    /**
+     * Marks the current thread as working for the specified module.
+     * Always pass the returned value to {@link #exit(String)} afterwards, e.g. in a finally block.
+     *
+     * @param moduleName {@link String} containing the module's name.
+     * @return {@link String} containing the name of the module the thread worked for before, null if none.
+     */
+    @Nullable
+    public static String enter(String moduleName) {
+        String previous = CURRENT_MODULE.get();
+        CURRENT_MODULE.set(moduleName);
+        return previous;
+    }
+    
+    /**
+     * Restores the module the current thread worked for before {@link #enter(String)}.
+     *
+     * @param previous {@link String} returned by {@link #enter(String)}.
+     */
+    public static void exit(@Nullable String previous) {
+        if (previous == null) {
+            CURRENT_MODULE.remove();
+        } else {
+            CURRENT_MODULE.set(previous);
+        }
+    }
+}
@@ -18,19 +18,36 @@
 
 package com.dreamhorizon.core.modulation.implementation;
 
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * @author Lukas Mansour
  * @since 1.0
  */
 public class ModuleEntry {
+    private final File jar;
     private final Module module;
     private final String name;
     private final String author;
+    private final boolean lazy;
+    private final List<String> depends;
+    private final List<String> softDepends;
+    private final String packagePrefix;
     
-    public ModuleEntry(String name, String author, Module module) {
+    public ModuleEntry(File jar, String name, String author, boolean lazy, List<String> depends, List<String> softDepends, Module module) {
+        this.jar = jar;
         this.name = name;
         this.author = author;
+        this.lazy = lazy;
+        this.depends = Collections.unmodifiableList(depends);
+        this.softDepends = Collections.unmodifiableList(softDepends);
         this.module = module;
+        String className = module.getClass().getName();
+        int packageEnd = className.lastIndexOf('.');
+        // Modules in the default package can only be recognized by their main class.
+        this.packagePrefix = packageEnd == -1 ? className : className.substring(0, packageEnd + 1);
     }
     
     public String getName() {
@@ -44,4 +61,53 @@ public class ModuleEntry {
     public String getAuthor() {
         return author;
     }
+    
+    public File getJar() {
+        return jar;
+    }
+    
+    /**
+     * Gets whether the module is only enabled once it's used, see {@link ModuleInfo#lazy()}.
+     *
+     * @return true if the module is enabled on first use, false otherwise.
+     */
+    public boolean isLazy() {
+        return lazy;
+    }
+    
+    /**
+     * Gets the names of the modules this module requires, see {@link ModuleInfo#depends()}.
+     *
+     * @return unmodifiable {@link List} of module names.
+     */
+    public List<String> getDepends() {
+        return depends;
+    }
+    
+    /**
+     * Gets the names of the modules this module optionally depends on, see {@link ModuleInfo#softDepends()}.
+     *
+     * @return unmodifiable {@link List} of module names.
+     */
+    public List<String> getSoftDepends() {
+        return softDepends;
+    }
+    
+    /**
+     * Gets whether the module has its own {@link ModuleClassLoader} and can therefore be reloaded at runtime.
+     *
+     * @return true if the module can be reloaded, false otherwise.
+     */
+    public boolean isReloadable() {
+        return module.getClass().getClassLoader() instanceof ModuleClassLoader;
+    }
+    
+    /**
+     * Gets the package prefix of the module's main class, which is used to recognize the module's classes.
+     *
+     * @return {@link String} containing the package name followed by a dot.
+     */
+    public String getPackagePrefix() {
+        return packagePrefix;
+    }
 }
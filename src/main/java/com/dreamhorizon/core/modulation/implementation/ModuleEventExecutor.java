@@ -0,0 +1,73 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.modulation.implementation;
+
+import com.dreamhorizon.core.modulation.ModuleHandler;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+
+import java.lang.reflect.Method;
+
+/**
+ * {@link EventExecutor} for a single event handler method of a module's listener.
+ * If the module is lazy and not enabled yet, it's enabled before the event is passed on.
+ * The handler is called through the server's generated executor, the time spent in it is recorded
+ * in the handler's {@link ListenerStatistics.HandlerStatistics}.
+ * Stalls in handlers are left to the watchdog's tick tracking, which attributes them by the sampled stacks.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public class ModuleEventExecutor implements EventExecutor {
+    private final ModuleEntry moduleEntry;
+    private final String moduleName;
+    private final Class<? extends Event> eventClass;
+    private final EventExecutor executor;
+    private final ListenerStatistics.HandlerStatistics statistics;
+    
+    public ModuleEventExecutor(ModuleEntry moduleEntry, Class<? extends Event> eventClass, Method method,
+                               ListenerStatistics.HandlerStatistics statistics) {
+        this.moduleEntry = moduleEntry;
+        this.moduleName = moduleEntry.getName();
+        this.eventClass = eventClass;
+        this.executor = EventExecutor.create(method, eventClass);
+        this.statistics = statistics;
+    }
+    
+    @Override
+    public void execute(Listener listener, Event event) throws EventException {
+        // Handlers are registered for the event's handler list, which may be shared with subclasses of the event.
+        if (!eventClass.isInstance(event)) {
+            return;
+        }
+        if (!moduleEntry.getModule().isEnabled()) {
+            ModuleHandler.getInstance().activateModule(moduleEntry);
+        }
+        String previousModule = ModuleContext.enter(moduleName);
+        long start = System.nanoTime();
+        try {
+            executor.execute(listener, event);
+        } finally {
+            statistics.record(System.nanoTime() - start);
+            ModuleContext.exit(previousModule);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.modulation.implementation;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Executor for a module's asynchronous tasks, which keeps track of its queue and task latency.
+ * On Java 21 and newer every task runs on its own virtual thread, otherwise the tasks run on a pool shared by all modules.
+ * Either way a module can only have a limited amount of unfinished tasks, further tasks are rejected.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public class ModuleExecutor implements Executor {
+    private static final Logger LOGGER = LogManager.getLogger("com.dreamhorizon.core");
+    private final String moduleName;
+    private final String name;
+    private final Executor executor;
+    // Only set for virtual threads, the shared pool isn't owned by a single module.
+    private final ExecutorService ownedExecutor;
+    private final int maximumTasks;
+    private final AtomicInteger unfinishedTasks = new AtomicInteger();
+    private final AtomicInteger queuedTasks = new AtomicInteger();
+    private final LongAdder submittedTasks = new LongAdder();
+    private final LongAdder completedTasks = new LongAdder();
+    private final LongAdder failedTasks = new LongAdder();
+    private final LongAdder rejectedTasks = new LongAdder();
+    private final LongAdder droppedTasks = new LongAdder();
+    private final LongAdder totalQueueNanos = new LongAdder();
+    private final LongAdder totalExecutionNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0L);
+    private final Object terminationLock = new Object();
+    private volatile boolean shutdown;
+    // Set once the shutdown timed out, tasks which didn't start yet are dropped.
+    private volatile boolean terminated;
+    
+    /**
+     * Creates an executor for the specified module.
+     *
+     * @param moduleName   {@link String} containing the module's name.
+     * @param sharedPool   {@link Executor} shared by all modules, null to run the tasks on virtual threads instead.
+     * @param maximumTasks maximum amount of unfinished tasks.
+     */
+    public ModuleExecutor(String moduleName, @Nullable Executor sharedPool, int maximumTasks) {
+        this.moduleName = moduleName;
+        this.name = "DHCore-Async-" + moduleName;
+        if (sharedPool == null) {
+            this.ownedExecutor = VirtualThreads.newExecutor(name);
+            this.executor = ownedExecutor;
+        } else {
+            this.ownedExecutor = null;
+            this.executor = sharedPool;
+        }
+        this.maximumTasks = maximumTasks;
+    }
+    
+    /**
+     * Checks to see if the running JVM supports virtual threads.
+     *
+     * @return true on Java 21 and newer, false otherwise.
+     */
+    public static boolean isVirtualThreadsAvailable() {
+        return VirtualThreads.isAvailable();
+    }
+    
+    /**
+     * Runs the specified task asynchronously, exceptions it throws are logged.
+     *
+     * @param task {@link Runnable} to be run.
+     * @throws RejectedExecutionException if the executor was shut down or has too many unfinished tasks.
+     */
+    @Override
+    public void execute(Runnable task) {
+        dispatch(() -> {
+            try {
+                task.run();
+                completedTasks.increment();
+            } catch (Throwable t) {
+                failedTasks.increment();
+                LOGGER.log(Level.ERROR, "[Module] An asynchronous task of " + name + " failed.");
+                t.printStackTrace();
+            }
+        }, null);
+    }
+    
+    /**
+     * Submits a task to the executor.
+     * If the executor was shut down or has too many unfinished tasks, the returned future completes exceptionally.
+     * If the task is dropped because the shutdown timed out before it started, the future is cancelled.
+     *
+     * @param task {@link Supplier} to run asynchronously.
+     * @param <T>  type of the task's result.
+     * @return {@link CompletableFuture} completed with the task's result.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            dispatch(() -> {
+                try {
+                    future.complete(task.get());
+                    completedTasks.increment();
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                    failedTasks.increment();
+                }
+            }, () -> future.completeExceptionally(new CancellationException(name + " was shut down before the task started.")));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+    
+    /**
+     * Submits a task without a result to the executor.
+     *
+     * @param task {@link Runnable} to run asynchronously.
+     * @return {@link CompletableFuture} completed once the task finished.
+     */
+    public CompletableFuture<Void> run(Runnable task) {
+        return submit(() -> {
+            task.run();
+            return null;
+        });
+    }
+    
+    private void dispatch(Runnable task, @Nullable Runnable onDrop) {
+        if (shutdown) {
+            rejectedTasks.increment();
+            throw new RejectedExecutionException(name + " was shut down.");
+        }
+        if (unfinishedTasks.incrementAndGet() > maximumTasks) {
+            finishTask();
+            rejectedTasks.increment();
+            throw new RejectedExecutionException(name + " already has " + maximumTasks + " unfinished tasks.");
+        }
+        queuedTasks.incrementAndGet();
+        long submitTime = System.nanoTime();
+        try {
+            executor.execute(() -> runTask(task, onDrop, submitTime));
+            submittedTasks.increment();
+        } catch (RejectedExecutionException e) {
+            queuedTasks.decrementAndGet();
+            finishTask();
+            rejectedTasks.increment();
+            throw e;
+        }
+    }
+    
+    private void runTask(Runnable task, @Nullable Runnable onDrop, long submitTime) {
+        queuedTasks.decrementAndGet();
+        if (terminated) {
+            droppedTasks.increment();
+            if (onDrop != null) {
+                onDrop.run();
+            }
+            finishTask();
+            return;
+        }
+        Thread thread = Thread.currentThread();
+        String threadName = thread.getName();
+        // Threads of the shared pool carry the name of the module whose task they're running.
+        if (ownedExecutor == null) {
+            thread.setName(name);
+        }
+        long startTime = System.nanoTime();
+        totalQueueNanos.add(startTime - submitTime);
+        String previousModule = ModuleContext.enter(moduleName);
+        try {
+            task.run();
+        } finally {
+            ModuleContext.exit(previousModule);
+            long endTime = System.nanoTime();
+            totalExecutionNanos.add(endTime - startTime);
+            maxLatencyNanos.accumulate(endTime - submitTime);
+            if (ownedExecutor == null) {
+                thread.setName(threadName);
+            }
+            finishTask();
+        }
+    }
+    
+    private void finishTask() {
+        if (unfinishedTasks.decrementAndGet() == 0 && shutdown) {
+            synchronized (terminationLock) {
+                terminationLock.notifyAll();
+            }
+        }
+    }
+    
+    /**
+     * Stops accepting new tasks, the unfinished ones keep running.
+     * This doesn't block, use {@link #awaitTermination(long)} to wait for the tasks.
+     */
+    public void shutdown() {
+        shutdown = true;
+    }
+    
+    /**
+     * Waits for the unfinished tasks of a shut down executor to finish.
+     * Tasks which didn't start before the timeout are dropped, the futures of dropped tasks are cancelled.
+     * This mustn't be called on the main thread while the server is running, tasks may be waiting for it.
+     *
+     * @param timeoutMillis maximum time to wait in milliseconds.
+     * @return true if all tasks finished in time, false otherwise.
+     */
+    public boolean awaitTermination(long timeoutMillis) {
+        shutdown = true;
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        boolean finished = true;
+        synchronized (terminationLock) {
+            while (unfinishedTasks.get() > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    finished = false;
+                    break;
+                }
+                try {
+                    terminationLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    finished = false;
+                    break;
+                }
+            }
+        }
+        terminated = true;
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+        return finished;
+    }
+    
+    public String getModuleName() {
+        return moduleName;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public boolean isVirtual() {
+        return ownedExecutor != null;
+    }
+    
+    public boolean isShutdown() {
+        return shutdown;
+    }
+    
+    public int getQueueDepth() {
+        return queuedTasks.get();
+    }
+    
+    public int getActiveTasks() {
+        return Math.max(0, unfinishedTasks.get() - queuedTasks.get());
+    }
+    
+    public int getMaximumTasks() {
+        return maximumTasks;
+    }
+    
+    public long getSubmittedTasks() {
+        return submittedTasks.sum();
+    }
+    
+    public long getCompletedTasks() {
+        return completedTasks.sum();
+    }
+    
+    public long getFailedTasks() {
+        return failedTasks.sum();
+    }
+    
+    public long getRejectedTasks() {
+        return rejectedTasks.sum();
+    }
+    
+    public long getDroppedTasks() {
+        return droppedTasks.sum();
+    }
+    
+    /**
+     * Gets the average time tasks spent waiting in the queue.
+     *
+     * @return average queue time in milliseconds.
+     */
+    public double getAverageQueueMillis() {
+        long finished = completedTasks.sum() + failedTasks.sum();
+        return finished == 0 ? 0 : totalQueueNanos.sum() / (finished * 1_000_000.0);
+    }
+    
+    /**
+     * Gets the average time tasks spent running.
+     *
+     * @return average execution time in milliseconds.
+     */
+    public double getAverageExecutionMillis() {
+        long finished = completedTasks.sum() + failedTasks.sum();
+        return finished == 0 ? 0 : totalExecutionNanos.sum() / (finished * 1_000_000.0);
+    }
+    
+    /**
+     * Gets the longest time between submitting a task and it finishing.
+     *
+     * @return maximum latency in milliseconds.
+     */
+    public double getMaxLatencyMillis() {
+        return maxLatencyNanos.get() / 1_000_000.0;
+    }
+}
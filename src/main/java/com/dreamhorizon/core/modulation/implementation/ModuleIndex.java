@@ -0,0 +1,242 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.modulation.implementation;
+
+import com.dreamhorizon.core.util.FileUtil;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * On-disk index of module jars, which remembers the main class and {@link ModuleInfo} values of every jar.
+ * A jar whose size and modification time are unchanged is trusted, otherwise its content hash is compared.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public class ModuleIndex {
+    private static final Logger LOGGER = LogManager.getLogger("com.dreamhorizon.core");
+    private static final String HEADER = "# DreamHorizonCore module index, jar\tsize\tmodified\tsha256\tclass\tname\tauthor\tmodels\tlazy\tdepends\tsoft_depends";
+    private final File file;
+    private final Map<String, Entry> entries = new TreeMap<>();
+    private boolean changed = false;
+    
+    private ModuleIndex(File file) {
+        this.file = file;
+    }
+    
+    /**
+     * Reads the index from the specified file, a missing or unreadable file results in an empty index.
+     *
+     * @param file {@link File} containing the index.
+     * @return {@link ModuleIndex} read from the file.
+     */
+    public static ModuleIndex load(File file) {
+        ModuleIndex index = new ModuleIndex(file);
+        if (!file.isFile()) {
+            return index;
+        }
+        try {
+            for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\t", -1);
+                // Entries in an older format are rescanned.
+                if (parts.length != 11) {
+                    continue;
+                }
+                index.entries.put(parts[0], new Entry(Long.parseLong(parts[1]), Long.parseLong(parts[2]), parts[3],
+                    parts[4], parts[5], parts[6], Boolean.parseBoolean(parts[7]), Boolean.parseBoolean(parts[8]),
+                    splitNames(parts[9]), splitNames(parts[10])));
+            }
+        } catch (IOException | NumberFormatException e) {
+            LOGGER.log(Level.WARN, "[Module] The module index couldn't be read, all modules will be scanned.");
+            index.entries.clear();
+        }
+        return index;
+    }
+    
+    /**
+     * Gets the indexed entry of the specified jar, if the jar didn't change since it was indexed.
+     *
+     * @param jar {@link File} of the module jar.
+     * @return {@link Entry} of the jar, null if the jar isn't indexed or changed.
+     */
+    @Nullable
+    public Entry get(File jar) {
+        Entry entry = entries.get(jar.getName());
+        if (entry == null) {
+            return null;
+        }
+        if (entry.size == jar.length() && entry.modified == jar.lastModified()) {
+            return entry;
+        }
+        // The jar may only have been touched or copied, its content decides.
+        try {
+            if (entry.size != jar.length() || !entry.hash.equals(FileUtil.sha256(jar))) {
+                return null;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        Entry updated = new Entry(entry.size, jar.lastModified(), entry.hash, entry.className, entry.name, entry.author,
+            entry.models, entry.lazy, entry.depends, entry.softDepends);
+        entries.put(jar.getName(), updated);
+        changed = true;
+        return updated;
+    }
+    
+    /**
+     * Indexes the specified jar.
+     *
+     * @param jar         {@link File} of the module jar.
+     * @param className   {@link String} containing the name of the module's main class.
+     * @param name        {@link String} containing the module's name.
+     * @param author      {@link String} containing the module's author.
+     * @param models      whether the jar contains database models.
+     * @param lazy        whether the module is enabled on first use.
+     * @param depends     {@link List} of the names of the modules it requires.
+     * @param softDepends {@link List} of the names of the modules it optionally depends on.
+     */
+    public void put(File jar, String className, String name, String author, boolean models, boolean lazy,
+                    List<String> depends, List<String> softDepends) {
+        try {
+            entries.put(jar.getName(), new Entry(jar.length(), jar.lastModified(), FileUtil.sha256(jar), className, name, author,
+                models, lazy, depends, softDepends));
+            changed = true;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARN, "[Module] " + jar.getName() + " couldn't be hashed, it will be scanned again on the next startup.");
+        }
+    }
+    
+    /**
+     * Removes the entries of all jars which aren't in the specified names.
+     *
+     * @param jarNames {@link Collection} of the names of existing module jars.
+     */
+    public void retain(Collection<String> jarNames) {
+        changed |= entries.keySet().retainAll(jarNames);
+    }
+    
+    /**
+     * Writes the index to its file, if it changed since it was read.
+     */
+    public void save() {
+        if (!changed) {
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add(HEADER);
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            Entry value = entry.getValue();
+            lines.add(String.join("\t", entry.getKey(), String.valueOf(value.size), String.valueOf(value.modified),
+                value.hash, value.className, value.name, value.author, String.valueOf(value.models), String.valueOf(value.lazy),
+                String.join(",", value.depends), String.join(",", value.softDepends)));
+        }
+        try {
+            Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+            changed = false;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARN, "[Module] The module index couldn't be saved, all modules will be scanned on the next startup.");
+        }
+    }
+    
+    private static List<String> splitNames(String names) {
+        List<String> split = new ArrayList<>();
+        for (String name : names.split(",")) {
+            if (!name.isEmpty()) {
+                split.add(name);
+            }
+        }
+        return split;
+    }
+    
+    public static class Entry {
+        private final long size;
+        private final long modified;
+        private final String hash;
+        private final String className;
+        private final String name;
+        private final String author;
+        private final boolean models;
+        private final boolean lazy;
+        private final List<String> depends;
+        private final List<String> softDepends;
+        
+        private Entry(long size, long modified, String hash, String className, String name, String author,
+                      boolean models, boolean lazy, List<String> depends, List<String> softDepends) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+            this.className = className;
+            this.name = name;
+            this.author = author;
+            this.models = models;
+            this.lazy = lazy;
+            this.depends = depends;
+            this.softDepends = softDepends;
+        }
+        
+        public String getClassName() {
+            return className;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public String getAuthor() {
+            return author;
+        }
+        
+        /**
+         * Gets whether the jar contains database models.
+         * Such jars are loaded by the plugin's {@link ClassLoader}, because ActiveJDBC can only see models there.
+         *
+         * @return true if the jar contains database models, false otherwise.
+         */
+        public boolean hasModels() {
+            return models;
+        }
+        
+        public boolean isLazy() {
+            return lazy;
+        }
+        
+        public List<String> getDepends() {
+            return depends;
+        }
+        
+        public List<String> getSoftDepends() {
+            return softDepends;
+        }
+    }
+}
@@ -33,4 +33,25 @@ public @interface ModuleInfo {
     String name();
     
     String author();
+    
+    /**
+     * Lazy modules are only enabled once one of their commands is used or one of their listeners receives an event.
+     *
+     * @return true if the module should be enabled on first use, false if it should be enabled on startup.
+     */
+    boolean lazy() default false;
+    
+    /**
+     * Modules which have to be loaded for this module to load, they are loaded and enabled before this module.
+     *
+     * @return names of the required modules.
+     */
+    String[] depends() default {};
+    
+    /**
+     * Modules which are loaded and enabled before this module if they are present, but aren't required.
+     *
+     * @return names of the optional modules.
+     */
+    String[] softDepends() default {};
 }
\ No newline at end of file
@@ -0,0 +1,159 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.modulation.implementation;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Immutable snapshot of the loaded modules, with all of its views computed up front.
+ * The module handler builds a new snapshot whenever a module is added, removed, enabled or disabled,
+ * so reading a snapshot never allocates or locks and all of its views are consistent with each other.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public final class ModuleRegistry {
+    public static final ModuleRegistry EMPTY = new ModuleRegistry(Collections.emptyList(), module -> false);
+    private final List<ModuleEntry> entries;
+    private final List<Module> modules;
+    private final List<ModuleEntry> entriesByName;
+    private final List<String> names;
+    private final List<ModuleEntry> enabledEntries;
+    private final List<Module> enabledModules;
+    private final Map<String, ModuleEntry> entriesByNameMap;
+    private final Map<Module, ModuleEntry> entriesByModule;
+    
+    /**
+     * Creates a snapshot of the specified modules.
+     *
+     * @param entries {@link List} of {@link ModuleEntry}s in load order.
+     * @param enabled {@link Predicate} which tells if a module counts as enabled.
+     */
+    public ModuleRegistry(List<ModuleEntry> entries, Predicate<Module> enabled) {
+        List<Module> modules = new ArrayList<>(entries.size());
+        List<ModuleEntry> enabledEntries = new ArrayList<>();
+        List<Module> enabledModules = new ArrayList<>();
+        Map<String, ModuleEntry> entriesByNameMap = new HashMap<>();
+        Map<Module, ModuleEntry> entriesByModule = new IdentityHashMap<>();
+        for (ModuleEntry moduleEntry : entries) {
+            Module module = moduleEntry.getModule();
+            modules.add(module);
+            if (enabled.test(module)) {
+                enabledEntries.add(moduleEntry);
+                enabledModules.add(module);
+            }
+            entriesByNameMap.put(moduleEntry.getName(), moduleEntry);
+            entriesByModule.put(module, moduleEntry);
+        }
+        List<ModuleEntry> entriesByName = new ArrayList<>(entries);
+        entriesByName.sort(Comparator.comparing(ModuleEntry::getName, String.CASE_INSENSITIVE_ORDER));
+        List<String> names = new ArrayList<>(entriesByName.size());
+        entriesByName.forEach(moduleEntry -> names.add(moduleEntry.getName()));
+        
+        this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+        this.modules = Collections.unmodifiableList(modules);
+        this.entriesByName = Collections.unmodifiableList(entriesByName);
+        this.names = Collections.unmodifiableList(names);
+        this.enabledEntries = Collections.unmodifiableList(enabledEntries);
+        this.enabledModules = Collections.unmodifiableList(enabledModules);
+        this.entriesByNameMap = entriesByNameMap;
+        this.entriesByModule = entriesByModule;
+    }
+    
+    /**
+     * Gets the entries of all modules, every module comes after its dependencies.
+     *
+     * @return unmodifiable {@link List} of {@link ModuleEntry}s.
+     */
+    public List<ModuleEntry> getEntries() {
+        return entries;
+    }
+    
+    /**
+     * Gets all modules, every module comes after its dependencies.
+     *
+     * @return unmodifiable {@link List} of {@link Module}s.
+     */
+    public List<Module> getModules() {
+        return modules;
+    }
+    
+    /**
+     * Gets the entries of all modules sorted by their names.
+     *
+     * @return unmodifiable {@link List} of {@link ModuleEntry}s.
+     */
+    public List<ModuleEntry> getEntriesByName() {
+        return entriesByName;
+    }
+    
+    /**
+     * Gets the names of all modules in alphabetical order.
+     *
+     * @return unmodifiable {@link List} of the names.
+     */
+    public List<String> getNames() {
+        return names;
+    }
+    
+    /**
+     * Gets the entries of the enabled modules, every module comes after its dependencies.
+     *
+     * @return unmodifiable {@link List} of {@link ModuleEntry}s.
+     */
+    public List<ModuleEntry> getEnabledEntries() {
+        return enabledEntries;
+    }
+    
+    /**
+     * Gets the enabled modules, every module comes after its dependencies.
+     *
+     * @return unmodifiable {@link List} of {@link Module}s.
+     */
+    public List<Module> getEnabledModules() {
+        return enabledModules;
+    }
+    
+    @Nullable
+    public ModuleEntry get(String moduleName) {
+        return entriesByNameMap.get(moduleName);
+    }
+    
+    @Nullable
+    public ModuleEntry get(Module module) {
+        return entriesByModule.get(module);
+    }
+    
+    public boolean contains(String moduleName) {
+        return entriesByNameMap.containsKey(moduleName);
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+}
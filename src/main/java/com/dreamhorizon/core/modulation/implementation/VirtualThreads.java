@@ -0,0 +1,99 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.modulation.implementation;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads, which are only available on Java 21 and newer.
+ * The plugin is compiled for Java 8, so the virtual thread API is looked up when the class is loaded.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+final class VirtualThreads {
+    // Thread.ofVirtual(), null if virtual threads aren't available.
+    private static final MethodHandle OF_VIRTUAL;
+    // Thread.Builder.name(String, long)
+    private static final MethodHandle NAME;
+    // Thread.Builder.factory()
+    private static final MethodHandle FACTORY;
+    // Executors.newThreadPerTaskExecutor(ThreadFactory)
+    private static final MethodHandle NEW_THREAD_PER_TASK_EXECUTOR;
+    
+    static {
+        MethodHandle ofVirtual = null;
+        MethodHandle name = null;
+        MethodHandle factory = null;
+        MethodHandle newThreadPerTaskExecutor = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Class<?> ofVirtualClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(ofVirtualClass));
+            name = lookup.findVirtual(builderClass, "name", MethodType.methodType(builderClass, String.class, long.class));
+            factory = lookup.findVirtual(builderClass, "factory", MethodType.methodType(ThreadFactory.class));
+            newThreadPerTaskExecutor = lookup.findStatic(Executors.class, "newThreadPerTaskExecutor",
+                MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+        } catch (ReflectiveOperationException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+    
+    private VirtualThreads() {
+    }
+    
+    /**
+     * Checks to see if virtual threads are available on the running JVM.
+     *
+     * @return true if virtual threads are available, false otherwise.
+     */
+    static boolean isAvailable() {
+        return OF_VIRTUAL != null;
+    }
+    
+    /**
+     * Creates an executor which runs every task on a new virtual thread.
+     *
+     * @param name {@link String} prefix of the threads' names.
+     * @return {@link ExecutorService} which starts a virtual thread per task.
+     * @throws UnsupportedOperationException if virtual threads aren't available, see {@link #isAvailable()}.
+     */
+    static ExecutorService newExecutor(String name) {
+        if (!isAvailable()) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21.");
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(), name + "-", 1L);
+            ThreadFactory threadFactory = (ThreadFactory) FACTORY.invoke(builder);
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(threadFactory);
+        } catch (Throwable e) {
+            throw new UnsupportedOperationException("Virtual threads couldn't be created.", e);
+        }
+    }
+}
@@ -18,10 +18,16 @@
 
 package com.dreamhorizon.core.objects;
 
+import com.dreamhorizon.core.util.UUIDUtil;
 import org.javalite.activejdbc.Model;
 import org.javalite.activejdbc.annotations.DbName;
+import org.javalite.activejdbc.annotations.IdName;
 import org.javalite.activejdbc.annotations.Table;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
 import java.util.UUID;
 
 /**
@@ -30,12 +36,35 @@ import java.util.UUID;
  */
 @Table("PLAYERS")
 @DbName("DreamHorizonCore")
+@IdName("uuid")
 public class Player extends Model {
     public UUID getUUID() {
-        return UUID.fromString((String) get("uuid"));
+        return UUIDUtil.fromBytes((byte[]) get("uuid"));
     }
     
     public void setUUID(UUID uuid) {
-        set("uuid", uuid.toString());
+        set("uuid", UUIDUtil.toBytes(uuid));
+    }
+    
+    public static Player findByUUID(UUID uuid) {
+        return findById(UUIDUtil.toBytes(uuid));
+    }
+    
+    public static Map<UUID, Player> findByUUIDs(Collection<UUID> uuids) {
+        Map<UUID, Player> players = new HashMap<>();
+        if (uuids.isEmpty()) {
+            return players;
+        }
+        StringJoiner placeholders = new StringJoiner(", ", "uuid IN (", ")");
+        Object[] params = new Object[uuids.size()];
+        int i = 0;
+        for (UUID uuid : uuids) {
+            placeholders.add("?");
+            params[i++] = UUIDUtil.toBytes(uuid);
+        }
+        for (Player player : Player.<Player>where(placeholders.toString(), params)) {
+            players.put(player.getUUID(), player);
+        }
+        return players;
     }
 }
@@ -0,0 +1,263 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.tasks;
+
+import com.dreamhorizon.core.configuration.ConfigurationHandler;
+import com.dreamhorizon.core.configuration.enums.CoreConfiguration;
+import com.dreamhorizon.core.configuration.implementation.EnumConfiguration;
+import com.dreamhorizon.core.modulation.ModuleHandler;
+import com.dreamhorizon.core.modulation.implementation.ModuleEntry;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Watches the main thread from its own thread and reports stalls to the watchdog log.
+ * The main thread's current operation, e.g. a module's onEnable, is tracked with
+ * {@link #enter(String, String)} and {@link #exit(Operation)}, ticks are tracked with {@link #heartbeat()}.
+ * While the current operation or tick takes longer than the threshold, the main thread's stack is sampled
+ * and every sample is attributed to the module which it's running.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public class MainThreadWatchdog implements Runnable {
+    private static final Logger LOGGER = LogManager.getLogger("com.dreamhorizon.core");
+    private static final Logger WATCHDOG_LOGGER = LogManager.getLogger("com.dreamhorizon.core.watchdog");
+    private static final String SERVER = "server";
+    // Only the innermost frames are compared, so that samples of the same hot spot are grouped together.
+    private static final int STACK_DEPTH = 40;
+    private static final int MAXIMUM_SAMPLES = 1000;
+    private static MainThreadWatchdog instance;
+    private final boolean enabled;
+    private final long thresholdNanos;
+    private final long sampleIntervalMillis;
+    private volatile Thread mainThread;
+    private volatile Operation current;
+    // 0 until the first tick, the server's startup isn't a stall.
+    private volatile long lastHeartbeat;
+    private Thread watchdogThread;
+    
+    private MainThreadWatchdog() {
+        EnumConfiguration coreConfig = ConfigurationHandler.getInstance().getConfig("core");
+        enabled = (boolean) coreConfig.get(CoreConfiguration.WATCHDOG_ENABLED);
+        thresholdNanos = ((Number) coreConfig.get(CoreConfiguration.WATCHDOG_THRESHOLD)).longValue() * 1_000_000L;
+        sampleIntervalMillis = Math.max(1, ((Number) coreConfig.get(CoreConfiguration.WATCHDOG_SAMPLE_INTERVAL)).longValue());
+        if (Bukkit.isPrimaryThread()) {
+            mainThread = Thread.currentThread();
+        }
+    }
+    
+    /**
+     * Starts the watchdog thread, if the watchdog is enabled.
+     */
+    public void start() {
+        if (!enabled || watchdogThread != null) {
+            return;
+        }
+        watchdogThread = new Thread(this, "DHCore-Watchdog");
+        watchdogThread.setDaemon(true);
+        watchdogThread.start();
+    }
+    
+    public void shutdown() {
+        if (watchdogThread != null) {
+            watchdogThread.interrupt();
+            watchdogThread = null;
+        }
+    }
+    
+    /**
+     * Marks the start of a tick, has to be called by the main thread every tick.
+     */
+    public void heartbeat() {
+        if (mainThread == null) {
+            mainThread = Thread.currentThread();
+        }
+        lastHeartbeat = System.nanoTime();
+    }
+    
+    /**
+     * Marks the start of an operation on the main thread, calls from other threads are ignored.
+     * Every operation has to be ended with {@link #exit(Operation)}, usually in a finally block.
+     *
+     * @param moduleName  {@link String} containing the name of the module which runs the operation, null for the core.
+     * @param description {@link String} describing the operation.
+     * @return {@link Operation} to be passed to {@link #exit(Operation)}, null if it isn't tracked.
+     */
+    @Nullable
+    public Operation enter(@Nullable String moduleName, String description) {
+        if (!enabled || Thread.currentThread() != mainThread) {
+            return null;
+        }
+        Operation operation = new Operation(moduleName, description, current);
+        current = operation;
+        return operation;
+    }
+    
+    /**
+     * Marks the end of the specified operation, operations which were started inside of it end too.
+     *
+     * @param operation {@link Operation} returned by {@link #enter(String, String)}.
+     */
+    public void exit(@Nullable Operation operation) {
+        if (operation != null) {
+            current = operation.parent;
+        }
+    }
+    
+    @Override
+    public void run() {
+        Stall stall = null;
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(sampleIntervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            Thread thread = mainThread;
+            if (thread == null) {
+                continue;
+            }
+            long now = System.nanoTime();
+            Operation operation = current;
+            long heartbeat = lastHeartbeat;
+            boolean operationStalled = operation != null && now - operation.start > thresholdNanos;
+            boolean tickStalled = heartbeat != 0 && now - heartbeat > thresholdNanos;
+            if (!operationStalled && !tickStalled) {
+                if (stall != null) {
+                    report(stall);
+                    stall = null;
+                }
+                continue;
+            }
+            if (stall == null) {
+                long start = operationStalled ? operation.start : heartbeat;
+                if (tickStalled) {
+                    start = Math.min(start, heartbeat);
+                }
+                stall = new Stall(start);
+            }
+            stall.sample(thread.getStackTrace(), operation, now);
+        }
+    }
+    
+    private void report(Stall stall) {
+        ModuleHandler moduleHandler = ModuleHandler.getInstance();
+        Map<String, Integer> modules = new HashMap<>();
+        Map<List<StackTraceElement>, Integer> stacks = new HashMap<>();
+        for (int i = 0; i < stall.sampleCount; i++) {
+            StackTraceElement[] stackTrace = stall.stackTraces[i];
+            ModuleEntry moduleEntry = moduleHandler.findCallingModule(stackTrace);
+            String module = moduleEntry != null ? moduleEntry.getName() : stall.operationModules[i];
+            modules.merge(module == null ? SERVER : module, 1, Integer::sum);
+            stacks.merge(Arrays.asList(Arrays.copyOf(stackTrace, Math.min(STACK_DEPTH, stackTrace.length))), 1, Integer::sum);
+        }
+        String culprit = modules.entrySet().stream()
+            .max(Map.Entry.comparingByValue())
+            .map(Map.Entry::getKey)
+            .orElse(SERVER);
+        long durationMillis = (stall.lastSample - stall.start) / 1_000_000L;
+        
+        StringBuilder report = new StringBuilder();
+        report.append("Main thread stalled for at least ").append(durationMillis).append("ms, most likely caused by ").append(culprit).append('.');
+        if (!stall.operations.isEmpty()) {
+            report.append("\n  Operations: ").append(String.join(", ", stall.operations));
+        }
+        report.append("\n  Samples: ").append(stall.sampleCount);
+        modules.entrySet().stream()
+            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+            .forEach(entry -> report.append("\n    ").append(entry.getKey()).append(": ")
+                .append(Math.round(entry.getValue() * 100.0 / stall.sampleCount)).append('%'));
+        stacks.entrySet().stream()
+            .max(Comparator.comparingInt(Map.Entry::getValue))
+            .ifPresent(entry -> {
+                report.append("\n  Most frequent stack (").append(entry.getValue()).append(" of ").append(stall.sampleCount).append(" samples):");
+                for (StackTraceElement element : entry.getKey()) {
+                    report.append("\n    at ").append(element);
+                }
+            });
+        WATCHDOG_LOGGER.log(Level.WARN, report.toString());
+        LOGGER.log(Level.WARN, "[Watchdog] Main thread stalled for at least " + durationMillis + "ms, most likely caused by " + culprit
+            + ", see Watchdog.log for details.");
+    }
+    
+    public static MainThreadWatchdog getInstance() {
+        if (instance == null) {
+            instance = new MainThreadWatchdog();
+        }
+        return instance;
+    }
+    
+    /**
+     * Operation running on the main thread.
+     */
+    public static class Operation {
+        private final String moduleName;
+        private final String description;
+        private final Operation parent;
+        private final long start = System.nanoTime();
+        
+        private Operation(String moduleName, String description, Operation parent) {
+            this.moduleName = moduleName;
+            this.description = description;
+            this.parent = parent;
+        }
+        
+        @Override
+        public String toString() {
+            return moduleName == null ? description : description + " of " + moduleName;
+        }
+    }
+    
+    private static class Stall {
+        private final long start;
+        private final StackTraceElement[][] stackTraces = new StackTraceElement[MAXIMUM_SAMPLES][];
+        private final String[] operationModules = new String[MAXIMUM_SAMPLES];
+        private final Set<String> operations = new LinkedHashSet<>();
+        private int sampleCount;
+        private long lastSample;
+        
+        private Stall(long start) {
+            this.start = start;
+        }
+        
+        private void sample(StackTraceElement[] stackTrace, @Nullable Operation operation, long now) {
+            lastSample = now;
+            if (operation != null) {
+                operations.add(operation.toString());
+            }
+            if (sampleCount < MAXIMUM_SAMPLES) {
+                stackTraces[sampleCount] = stackTrace;
+                operationModules[sampleCount] = operation == null ? null : operation.moduleName;
+                sampleCount++;
+            }
+        }
+    }
+}
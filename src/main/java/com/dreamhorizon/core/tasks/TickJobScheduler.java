@@ -0,0 +1,283 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.tasks;
+
+import com.dreamhorizon.core.configuration.ConfigurationHandler;
+import com.dreamhorizon.core.configuration.enums.CoreConfiguration;
+import com.dreamhorizon.core.configuration.implementation.EnumConfiguration;
+import com.dreamhorizon.core.modulation.ModuleHandler;
+import com.dreamhorizon.core.modulation.implementation.Module;
+import com.dreamhorizon.core.modulation.implementation.ModuleContext;
+import com.dreamhorizon.core.modulation.implementation.ModuleEntry;
+import com.dreamhorizon.core.tasks.implementation.ChunkedJob;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs {@link ChunkedJob}s on the main thread within a time budget per tick and per module.
+ * Every tick the modules take turns, each module runs chunks of its jobs round-robin until its budget is used up.
+ * Jobs which aren't done carry over to the next tick, the module which goes first changes every tick.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public class TickJobScheduler extends BukkitRunnable {
+    private static final Logger LOGGER = LogManager.getLogger("com.dreamhorizon.core");
+    private static final String CORE = "core";
+    private static TickJobScheduler instance;
+    private final Map<String, ModuleJobs> moduleJobs = new ConcurrentHashMap<>();
+    private final LongAdder tickOverruns = new LongAdder();
+    private final long tickBudgetNanos;
+    private final long moduleBudgetNanos;
+    private int rotation;
+    private volatile boolean shutdown;
+    
+    private TickJobScheduler() {
+        EnumConfiguration coreConfig = ConfigurationHandler.getInstance().getConfig("core");
+        tickBudgetNanos = (long) (((Number) coreConfig.get(CoreConfiguration.SCHEDULER_TICK_BUDGET)).doubleValue() * 1_000_000L);
+        moduleBudgetNanos = (long) (((Number) coreConfig.get(CoreConfiguration.SCHEDULER_MODULE_BUDGET)).doubleValue() * 1_000_000L);
+    }
+    
+    /**
+     * Schedules the specified job for the specified module.
+     *
+     * @param module {@link Module} which the job belongs to.
+     * @param job    {@link ChunkedJob} to be run.
+     * @return {@link CompletableFuture} which completes once the job is done, cancelling it stops the job.
+     * It completes exceptionally if the scheduler was shut down.
+     */
+    public CompletableFuture<Void> submit(Module module, ChunkedJob job) {
+        ModuleEntry moduleEntry = ModuleHandler.getInstance().getModuleEntry(module);
+        if (moduleEntry == null) {
+            throw new IllegalArgumentException("Module " + module.getClass().getName() + " wasn't loaded by the module handler.");
+        }
+        return submit(moduleEntry.getName(), job);
+    }
+    
+    /**
+     * Schedules the specified job of the core.
+     *
+     * @param job {@link ChunkedJob} to be run.
+     * @return {@link CompletableFuture} which completes once the job is done, cancelling it stops the job.
+     * It completes exceptionally if the scheduler was shut down.
+     */
+    public CompletableFuture<Void> submit(ChunkedJob job) {
+        return submit(CORE, job);
+    }
+    
+    private CompletableFuture<Void> submit(String moduleName, ChunkedJob job) {
+        ScheduledJob scheduledJob = new ScheduledJob(job);
+        if (shutdown) {
+            scheduledJob.future.completeExceptionally(new RejectedExecutionException("The scheduler was shut down."));
+            return scheduledJob.future;
+        }
+        Queue<ScheduledJob> queue = moduleJobs.computeIfAbsent(moduleName, ModuleJobs::new).queue;
+        queue.offer(scheduledJob);
+        // The scheduler may have been shut down meanwhile, the job would never run then.
+        if (shutdown && queue.remove(scheduledJob)) {
+            scheduledJob.future.completeExceptionally(new RejectedExecutionException("The scheduler was shut down."));
+        }
+        return scheduledJob.future;
+    }
+    
+    /**
+     * Cancels all jobs of the module with the specified name.
+     *
+     * @param moduleName {@link String} containing the module's name.
+     */
+    public void cancelJobs(String moduleName) {
+        ModuleJobs jobs = moduleJobs.get(moduleName);
+        if (jobs == null) {
+            return;
+        }
+        ScheduledJob scheduledJob;
+        while ((scheduledJob = jobs.queue.poll()) != null) {
+            scheduledJob.future.cancel(false);
+        }
+    }
+    
+    /**
+     * Cancels the jobs of all modules and stops the scheduler, jobs submitted afterwards are rejected.
+     */
+    public void shutdown() {
+        shutdown = true;
+        moduleJobs.keySet().forEach(this::cancelJobs);
+        if (!isCancelled()) {
+            cancel();
+        }
+    }
+    
+    @Override
+    public void run() {
+        List<ModuleJobs> jobs = new ArrayList<>(moduleJobs.values());
+        if (jobs.isEmpty()) {
+            return;
+        }
+        long tickStart = System.nanoTime();
+        long tickDeadline = tickStart + tickBudgetNanos;
+        int first = Math.floorMod(rotation++, jobs.size());
+        for (int i = 0; i < jobs.size(); i++) {
+            long now = System.nanoTime();
+            if (now >= tickDeadline) {
+                break;
+            }
+            runJobs(jobs.get((first + i) % jobs.size()), now, Math.min(tickDeadline, now + moduleBudgetNanos));
+        }
+        if (System.nanoTime() - tickStart > tickBudgetNanos) {
+            tickOverruns.increment();
+        }
+    }
+    
+    private void runJobs(ModuleJobs jobs, long start, long deadline) {
+        long now = start;
+        // Chunks of a module's jobs are attributed to it, e.g. their database work uses its bulkhead.
+        String contextModule = CORE.equals(jobs.moduleName) ? null : jobs.moduleName;
+        while (now < deadline) {
+            ScheduledJob scheduledJob = jobs.queue.poll();
+            if (scheduledJob == null) {
+                break;
+            }
+            // Cancelled jobs are dropped.
+            if (scheduledJob.future.isDone()) {
+                continue;
+            }
+            String previousModule = ModuleContext.enter(contextModule);
+            try {
+                if (scheduledJob.job.runChunk()) {
+                    jobs.queue.offer(scheduledJob);
+                } else {
+                    scheduledJob.future.complete(null);
+                    jobs.completedJobs.increment();
+                }
+            } catch (Throwable t) {
+                LOGGER.log(Level.ERROR, "[Scheduler] A job of " + jobs.moduleName + " failed.");
+                t.printStackTrace();
+                scheduledJob.future.completeExceptionally(t);
+            } finally {
+                ModuleContext.exit(previousModule);
+            }
+            jobs.chunks.increment();
+            now = System.nanoTime();
+        }
+        long spent = now - start;
+        if (spent == 0) {
+            return;
+        }
+        jobs.totalNanos.add(spent);
+        if (spent > moduleBudgetNanos) {
+            jobs.overruns.increment();
+            jobs.worstOverrunNanos = Math.max(jobs.worstOverrunNanos, spent - moduleBudgetNanos);
+            LOGGER.log(Level.DEBUG, "[Scheduler] " + jobs.moduleName + " exceeded its budget by "
+                + String.format("%.2f", (spent - moduleBudgetNanos) / 1_000_000.0) + "ms.");
+        }
+    }
+    
+    /**
+     * Gets the jobs and statistics of every module which submitted a job.
+     *
+     * @return {@link Collection} of {@link ModuleJobs}.
+     */
+    public Collection<ModuleJobs> getModuleJobs() {
+        return moduleJobs.values();
+    }
+    
+    public long getTickOverruns() {
+        return tickOverruns.sum();
+    }
+    
+    public double getTickBudgetMillis() {
+        return tickBudgetNanos / 1_000_000.0;
+    }
+    
+    public double getModuleBudgetMillis() {
+        return moduleBudgetNanos / 1_000_000.0;
+    }
+    
+    public static TickJobScheduler getInstance() {
+        if (instance == null) {
+            instance = new TickJobScheduler();
+        }
+        return instance;
+    }
+    
+    public static class ModuleJobs {
+        private final String moduleName;
+        private final Queue<ScheduledJob> queue = new ConcurrentLinkedQueue<>();
+        private final LongAdder completedJobs = new LongAdder();
+        private final LongAdder chunks = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder overruns = new LongAdder();
+        // Only written by the main thread.
+        private volatile long worstOverrunNanos;
+        
+        private ModuleJobs(String moduleName) {
+            this.moduleName = moduleName;
+        }
+        
+        public String getModuleName() {
+            return moduleName;
+        }
+        
+        public int getQueuedJobs() {
+            return queue.size();
+        }
+        
+        public long getCompletedJobs() {
+            return completedJobs.sum();
+        }
+        
+        public long getChunks() {
+            return chunks.sum();
+        }
+        
+        public double getTotalMillis() {
+            return totalNanos.sum() / 1_000_000.0;
+        }
+        
+        public long getOverruns() {
+            return overruns.sum();
+        }
+        
+        public double getWorstOverrunMillis() {
+            return worstOverrunNanos / 1_000_000.0;
+        }
+    }
+    
+    private static class ScheduledJob {
+        private final ChunkedJob job;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        
+        private ScheduledJob(ChunkedJob job) {
+            this.job = job;
+        }
+    }
+}
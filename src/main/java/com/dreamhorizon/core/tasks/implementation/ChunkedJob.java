@@ -0,0 +1,37 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.tasks.implementation;
+
+/**
+ * Main thread job which is split up into small chunks, so that it can be spread over multiple ticks.
+ * The job has to keep track of its own progress, e.g. with an iterator.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+@FunctionalInterface
+public interface ChunkedJob {
+    /**
+     * Runs the next chunk of the job.
+     * Chunks should be small, the scheduler checks its budget only between chunks.
+     *
+     * @return true if the job has work left, false once it's done.
+     */
+    boolean runChunk();
+}
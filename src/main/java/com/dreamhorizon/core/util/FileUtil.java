@@ -24,6 +24,11 @@ import org.apache.logging.log4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 /**
  * @author Lukas Mansour
@@ -74,4 +79,29 @@ public class FileUtil {
             return false;
         }
     }
+    
+    /**
+     * Computes the SHA-256 hash of the file specified.
+     *
+     * @param file {@link File} to be hashed.
+     * @return {@link String} containing the hash as 64 hexadecimal characters.
+     * @throws IOException if the file couldn't be read.
+     */
+    public static String sha256(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[8192];
+        try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return String.format("%064x", new BigInteger(1, digest.digest()));
+    }
 }
@@ -0,0 +1,103 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe latency recorder with a logarithmic histogram, used to estimate percentiles without storing every sample.
+ *
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public class LatencyHistogram {
+    // Bucket i counts executions which took [2^i, 2^(i+1)) microseconds.
+    private static final int BUCKETS = 32;
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+    
+    public void record(long nanos) {
+        executions.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        long micros = Math.max(1, nanos / 1000);
+        histogram.incrementAndGet(Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros)));
+    }
+    
+    public void reset() {
+        executions.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram.set(i, 0);
+        }
+    }
+    
+    public long getExecutions() {
+        return executions.sum();
+    }
+    
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+    
+    public double getTotalMillis() {
+        return totalNanos.sum() / 1_000_000.0;
+    }
+    
+    public double getAverageMillis() {
+        long count = executions.sum();
+        return count == 0 ? 0 : totalNanos.sum() / (count * 1_000_000.0);
+    }
+    
+    public double getMaxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+    
+    /**
+     * Estimates the specified percentile from the histogram.
+     *
+     * @param percentile percentile between 0 and 1, e.g. 0.99.
+     * @return upper bound of the percentile's histogram bucket in milliseconds.
+     */
+    public double getPercentileMillis(double percentile) {
+        long total = 0;
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(total * percentile);
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative += counts[i];
+            if (cumulative >= threshold) {
+                return Math.min(getMaxMillis(), (1L << (i + 1)) / 1000.0);
+            }
+        }
+        return getMaxMillis();
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * DreamHorizonCore
+ * Copyright (C) 2019 Dream Horizon
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.dreamhorizon.core.util;
+
+import java.util.UUID;
+
+/**
+ * @author Lukas Mansour
+ * @since 1.0
+ */
+public class UUIDUtil {
+    /**
+     * Converts the specified {@link UUID} to its 16 byte big-endian representation, as stored in BINARY(16) columns.
+     *
+     * @param uuid {@link UUID} to be converted.
+     * @return {@link byte[]} of length 16.
+     */
+    public static byte[] toBytes(UUID uuid) {
+        long mostSignificantBits = uuid.getMostSignificantBits();
+        long leastSignificantBits = uuid.getLeastSignificantBits();
+        byte[] bytes = new byte[16];
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (mostSignificantBits >>> (56 - (i << 3)));
+            bytes[i + 8] = (byte) (leastSignificantBits >>> (56 - (i << 3)));
+        }
+        return bytes;
+    }
+    
+    /**
+     * Converts the specified 16 byte big-endian representation back to a {@link UUID}.
+     *
+     * @param bytes {@link byte[]} of length 16.
+     * @return {@link UUID} represented by the bytes.
+     */
+    public static UUID fromBytes(byte[] bytes) {
+        if (bytes.length != 16) {
+            throw new IllegalArgumentException("Invalid UUID byte length: " + bytes.length);
+        }
+        long mostSignificantBits = 0;
+        long leastSignificantBits = 0;
+        for (int i = 0; i < 8; i++) {
+            mostSignificantBits = (mostSignificantBits << 8) | (bytes[i] & 0xFF);
+            leastSignificantBits = (leastSignificantBits << 8) | (bytes[i + 8] & 0xFF);
+        }
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+}